@@ -4,16 +4,20 @@ import model.Course;
 import model.Payment;
 import model.PaymentMode;
 import model.PaymentStatus;
+import model.ReportType;
 import model.Role;
 import model.Student;
 import model.Teacher;
 import model.User;
 import service.*;
-import service.impl.*;
 import util.IdGenerator;
+import util.IdGenerator.Sequence;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -32,16 +36,15 @@ public class AdminDashboard {
 	private final RegistrationService registrationService;
 	private final ReportService reportService;
 
-	public AdminDashboard() {
+	public AdminDashboard(ApplicationContext context) {
 
-		this.teacherService = new TeacherServiceImpl();
-		this.courseService = new CourseServiceImpl(teacherService);
-		this.attendanceService = new AttendanceServiceImpl();
-		this.paymentService = new PaymentServiceImpl(courseService);
-		this.studentService = new StudentServiceImpl(paymentService, attendanceService);
-		this.registrationService = new RegistrationServiceImpl();
-
-		this.reportService = new ReportServiceImpl(studentService, teacherService, attendanceService, paymentService);
+		this.teacherService = context.getTeacherService();
+		this.courseService = context.getCourseService();
+		this.attendanceService = context.getAttendanceService();
+		this.paymentService = context.getPaymentService();
+		this.studentService = context.getStudentService();
+		this.registrationService = context.getRegistrationService();
+		this.reportService = context.getReportService();
 	}
 
 	public void start() {
@@ -264,6 +267,7 @@ public class AdminDashboard {
 					1. Mark Attendance
 					2. View Attendance Percentage
 					3. Students Below Threshold
+					4. Course Roll-Call
 					0. Back
 					""");
 
@@ -308,6 +312,7 @@ public class AdminDashboard {
 					studentsBelow.forEach(id -> System.out.println("Student ID: " + id));
 				}
 			}
+			case 4 -> courseRollCall();
 			case 0 -> running = false;
 			}
 		}
@@ -344,7 +349,7 @@ public class AdminDashboard {
 		String email = sc.nextLine();
 
 		// 4️⃣ Generate student ID and add student
-		Integer studentId = IdGenerator.generateId();
+		Integer studentId = IdGenerator.generateId(Sequence.STUDENT);
 		Student student = new Student(studentId, name, email, courseId); // No user linking
 		studentService.addStudent(student);
 
@@ -412,7 +417,7 @@ public class AdminDashboard {
 		System.out.print("Salary: ");
 		BigDecimal salary = new BigDecimal(sc.nextLine());
 
-		Integer teacherId = IdGenerator.generateId();
+		Integer teacherId = IdGenerator.generateId(Sequence.TEACHER);
 
 		Teacher teacher = new Teacher(teacherId, name, subject, salary);
 		teacherService.addTeacher(teacher);
@@ -476,7 +481,7 @@ public class AdminDashboard {
 		teacherService.getAllTeachers().forEach(t -> System.out
 				.println("ID: " + t.getTeacherId() + " | Name: " + t.getName() + " | Subject: " + t.getSubject()));
 
-		Integer courseId = IdGenerator.generateId();
+		Integer courseId = IdGenerator.generateId(Sequence.COURSE);
 
 		System.out.print("Course name: ");
 		String name = sc.nextLine();
@@ -578,7 +583,7 @@ public class AdminDashboard {
 			}
 
 			// 4️⃣ Create Payment object
-			Payment payment = new Payment(IdGenerator.generateId(), studentId, courseId, amount, mode,
+			Payment payment = new Payment(IdGenerator.generateId(Sequence.PAYMENT), studentId, courseId, amount, mode,
 					PaymentStatus.PENDING, LocalDateTime.now());
 
 			// 5️⃣ Delegate to PaymentServiceImpl
@@ -649,6 +654,52 @@ public class AdminDashboard {
 		}
 	}
 
+	private void courseRollCall() {
+
+		System.out.print("Course ID: ");
+		Integer courseId = Integer.parseInt(sc.nextLine());
+
+		courseService.getCourseById(courseId); // will throw exception if not found
+
+		List<Student> students = studentService.getStudentsByCourse(courseId);
+		if (students.isEmpty()) {
+			System.out.println("❌ No students enrolled in this course.");
+			return;
+		}
+
+		System.out.print("Date (yyyy-MM-dd, blank for today): ");
+		String dateInput = sc.nextLine().trim();
+		LocalDate date = dateInput.isEmpty() ? LocalDate.now() : LocalDate.parse(dateInput);
+
+		// 1️⃣ Collect marks for the whole class first
+		Map<Integer, Boolean> marks = new LinkedHashMap<>();
+
+		for (Student student : students) {
+			while (true) {
+				System.out.print(student.getStudentId() + " - " + student.getName() + " present? (y/n): ");
+				String input = sc.nextLine().trim().toLowerCase();
+
+				if (input.equals("y")) {
+					marks.put(student.getStudentId(), true);
+					break;
+				} else if (input.equals("n")) {
+					marks.put(student.getStudentId(), false);
+					break;
+				} else {
+					System.out.println("❌ Invalid input! Please enter 'y' or 'n'.");
+				}
+			}
+		}
+
+		// 2️⃣ Save them in one batch
+		try {
+			attendanceService.markAttendanceForCourse(courseId, date, marks);
+			System.out.println("✅ Attendance marked for " + marks.size() + " students");
+		} catch (Exception e) {
+			System.out.println("❌ Error marking attendance: " + e.getMessage());
+		}
+	}
+
 	// ---------------- REPORTS ----------------
 
 	private void generateReports() {
@@ -666,50 +717,106 @@ public class AdminDashboard {
 					5. Low Attendance
 					6. Teacher-Course Mapping
 					7. Generate ALL
+					8. Report Metrics
+					9. Schedule Report
 					0. Back
 					""");
 
 			System.out.print("Choose: ");
 			int choice = Integer.parseInt(sc.nextLine());
 
-			switch (choice) {
-
-			case 1 -> reportService.generateStudentReportAsync();
-			case 2 -> reportService.generateTeacherReportAsync();
-			case 3 -> reportService.generateStudentByCourseReportAsync();
-			case 4 -> reportService.generatePendingFeesReportAsync();
-			case 5 -> {
-				double threshold;
-
-				// Validate threshold input
-				while (true) {
-					try {
-						System.out.print("Enter attendance threshold (0-100): ");
-						threshold = Double.parseDouble(sc.nextLine());
+			try {
+				switch (choice) {
 
-						if (threshold < 0 || threshold > 100) {
-							System.out.println("❌ Invalid input! Enter a number between 0 and 100.");
-							continue;
+				case 1 -> reportService.generateStudentReportAsync();
+				case 2 -> reportService.generateTeacherReportAsync();
+				case 3 -> reportService.generateStudentByCourseReportAsync();
+				case 4 -> reportService.generatePendingFeesReportAsync();
+				case 5 -> {
+					double threshold;
+
+					// Validate threshold input
+					while (true) {
+						try {
+							System.out.print("Enter attendance threshold (0-100): ");
+							threshold = Double.parseDouble(sc.nextLine());
+
+							if (threshold < 0 || threshold > 100) {
+								System.out.println("❌ Invalid input! Enter a number between 0 and 100.");
+								continue;
+							}
+
+							break; // valid threshold
+						} catch (NumberFormatException e) {
+							System.out.println("❌ Invalid input! Enter a numeric value between 0 and 100.");
 						}
-
-						break; // valid threshold
-					} catch (NumberFormatException e) {
-						System.out.println("❌ Invalid input! Enter a numeric value between 0 and 100.");
 					}
+
+					reportService.generateLowAttendanceReportAsync(threshold);
+					System.out.println("✅ Low attendance report triggered for threshold: " + threshold + "%");
+				}
+				case 6 -> reportService.generateTeacherCourseMappingReportAsync();
+				case 7 -> {
+					System.out.println("Generating all reports...");
+					reportService.generateAllReportsAsync().join().values().forEach(System.out::println);
+				}
+				case 8 -> System.out.println(reportService.getMetrics());
+				case 9 -> scheduleReport();
+				case 0 -> running = false;
+				default -> System.out.println("Invalid choice");
 				}
 
-				reportService.generateLowAttendanceReportAsync(threshold);
-				System.out.println("✅ Low attendance report triggered for threshold: " + threshold + "%");
-			}
-			case 6 -> reportService.generateTeacherCourseMappingReportAsync();
-			case 7 -> reportService.generateAllReportsAsync();
-			case 0 -> running = false;
-			default -> System.out.println("Invalid choice");
+				if (choice >= 1 && choice <= 6) {
+					System.out.println("Reports generating in background...");
+				}
+			} catch (IllegalStateException e) {
+				// the report queue is full, or the report service has shut down
+				System.out.println("❌ " + e.getMessage());
 			}
+		}
+	}
 
-			if (choice != 0) {
-				System.out.println("Reports generating in background...");
-			}
+	private void scheduleReport() {
+
+		ReportType[] types = ReportType.values();
+
+		for (int i = 0; i < types.length; i++) {
+			System.out.println((i + 1) + ". " + types[i]);
+		}
+
+		System.out.print("Choose report: ");
+		int choice;
+		try {
+			choice = Integer.parseInt(sc.nextLine());
+		} catch (NumberFormatException e) {
+			System.out.println("❌ Invalid input! Enter the number of a report.");
+			return;
+		}
+
+		if (choice < 1 || choice > types.length) {
+			System.out.println("Invalid choice");
+			return;
+		}
+
+		ReportType type = types[choice - 1];
+
+		System.out.print("Run every how many minutes (0 to stop): ");
+		long minutes;
+		try {
+			minutes = Long.parseLong(sc.nextLine());
+		} catch (NumberFormatException e) {
+			System.out.println("❌ Invalid input! Enter a whole number of minutes.");
+			return;
+		}
+
+		if (minutes < 0) {
+			System.out.println("❌ Invalid input! Enter 0 or more minutes.");
+		} else if (minutes == 0) {
+			reportService.cancelScheduledReport(type);
+			System.out.println("✅ " + type + " report no longer scheduled");
+		} else {
+			reportService.scheduleReport(type, Duration.ofMinutes(minutes));
+			System.out.println("✅ " + type + " report scheduled every " + minutes + " minutes");
 		}
 	}
 }
\ No newline at end of file
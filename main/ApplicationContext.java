@@ -0,0 +1,115 @@
+package main;
+
+import service.*;
+import service.impl.ReportServiceImpl;
+import service.impl.ServiceBootstrap;
+import util.FileUtil;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The one service graph of the application, shared by every dashboard session.
+ *
+ * Data files are loaded once, on first use or in the background after
+ * {@link #warmUp()}; later logins reuse the same services and datasets.
+ */
+public final class ApplicationContext {
+
+	private volatile CompletableFuture<ServiceBootstrap> services;
+	private volatile ReportService reportService;
+
+	/**
+	 * Starts loading the data files without waiting for them, then starts the
+	 * report service so configured report schedules begin to run.
+	 */
+	public void warmUp() {
+		loading().thenRun(this::getReportService).exceptionally(e -> {
+			System.err.println("Report service not started: " + e.getMessage());
+			return null;
+		});
+	}
+
+	public TeacherService getTeacherService() {
+		return services().getTeacherService();
+	}
+
+	public CourseService getCourseService() {
+		return services().getCourseService();
+	}
+
+	public AttendanceService getAttendanceService() {
+		return services().getAttendanceService();
+	}
+
+	public PaymentService getPaymentService() {
+		return services().getPaymentService();
+	}
+
+	public StudentService getStudentService() {
+		return services().getStudentService();
+	}
+
+	public RegistrationService getRegistrationService() {
+		return services().getRegistrationService();
+	}
+
+	public LoginService getLoginService() {
+		return services().getLoginService();
+	}
+
+	public ReportService getReportService() {
+		ReportService reports = reportService;
+		if (reports == null) {
+			synchronized (this) {
+				reports = reportService;
+				if (reports == null) {
+					reports = new ReportServiceImpl(getStudentService(), getTeacherService(),
+							getAttendanceService(), getPaymentService());
+					reportService = reports;
+				}
+			}
+		}
+		return reports;
+	}
+
+	/** Stops the report workers and waits for pending writes. */
+	public synchronized void close() {
+		if (reportService != null) {
+			reportService.shutdown();
+		}
+		FileUtil.flush();
+	}
+
+	private ServiceBootstrap services() {
+		CompletableFuture<ServiceBootstrap> loading = loading();
+		try {
+			return loading.join();
+		} catch (CompletionException e) {
+			// let the next caller retry instead of caching the failure
+			synchronized (this) {
+				if (services == loading) {
+					services = null;
+				}
+			}
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new RuntimeException("Loading services failed", e.getCause());
+		}
+	}
+
+	private CompletableFuture<ServiceBootstrap> loading() {
+		CompletableFuture<ServiceBootstrap> loading = services;
+		if (loading == null) {
+			synchronized (this) {
+				loading = services;
+				if (loading == null) {
+					loading = CompletableFuture.supplyAsync(ServiceBootstrap::load);
+					services = loading;
+				}
+			}
+		}
+		return loading;
+	}
+}
@@ -0,0 +1,213 @@
+package main;
+
+import model.Payment;
+import model.PaymentMode;
+import model.PaymentStatus;
+import model.Student;
+import util.CsvBufferReader;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Startup load time of the data files: the line-by-line loaders the services
+ * used before (BufferedReader or readFile, String.split, Integer.parseInt,
+ * new BigDecimal, LocalDateTime.parse) against {@link CsvBufferReader}.
+ *
+ * Generates payments.csv and students.csv of the given size in a temp folder,
+ * loads each one with both loaders and prints the median of the rounds after
+ * one warm-up round. The data/ folder is not touched.
+ *
+ * Usage: java main.CsvLoadBenchmark [rows] [rounds]   (default 1000000 5)
+ */
+public class CsvLoadBenchmark {
+
+	private static final PaymentMode[] MODES = PaymentMode.values();
+	private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+	public static void main(String[] args) throws IOException {
+
+		int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		Path folder = Files.createTempDirectory("csv-load-benchmark");
+		try {
+			Path payments = writePayments(folder.resolve("payments.csv"), rows);
+			Path students = writeStudents(folder.resolve("students.csv"), rows);
+
+			System.out.println("Rows per file: " + rows + ", rounds: " + rounds);
+
+			compare("payments.csv", payments, rounds, CsvLoadBenchmark::loadPaymentsLineByLine,
+					CsvLoadBenchmark::loadPaymentsBuffered);
+			compare("students.csv", students, rounds, CsvLoadBenchmark::loadStudentsLineByLine,
+					CsvLoadBenchmark::loadStudentsBuffered);
+		} finally {
+			try (var files = Files.list(folder)) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					Files.deleteIfExists(file);
+				}
+			}
+			Files.deleteIfExists(folder);
+		}
+
+		System.exit(0);
+	}
+
+	private static void compare(String name, Path file, int rounds, Function<Path, Integer> lineByLine,
+			Function<Path, Integer> buffered) {
+
+		// warm-up, so the JIT has compiled both paths before anything is measured
+		lineByLine.apply(file);
+		buffered.apply(file);
+
+		long before = median(file, rounds, lineByLine);
+		long after = median(file, rounds, buffered);
+
+		System.out.println(name + ": line-by-line " + before + " ms, CsvBufferReader " + after + " ms"
+				+ (after > 0 ? " (" + (before * 10 / after) / 10.0 + "x)" : ""));
+	}
+
+	private static long median(Path file, int rounds, Function<Path, Integer> loader) {
+
+		long[] times = new long[rounds];
+		for (int i = 0; i < rounds; i++) {
+			long start = System.nanoTime();
+			int loaded = loader.apply(file);
+			times[i] = (System.nanoTime() - start) / 1_000_000;
+			if (loaded == 0) {
+				throw new IllegalStateException("Nothing loaded from " + file);
+			}
+		}
+		Arrays.sort(times);
+		return times[rounds / 2];
+	}
+
+	// ================= DATA =================
+
+	private static Path writePayments(Path file, int rows) throws IOException {
+
+		LocalDateTime start = LocalDateTime.of(2020, 1, 1, 9, 0);
+
+		try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+			writer.write("paymentId,studentId,courseId,amount,paymentMode,status,paymentDate");
+			writer.newLine();
+			for (int i = 0; i < rows; i++) {
+				writer.write((1001 + i) + "," + (1001 + i % 5000) + "," + (1 + i % 40) + ","
+						+ BigDecimal.valueOf(50_000 + i % 900_000, 2).toPlainString() + "," + MODES[i % MODES.length]
+						+ "," + STATUSES[i % STATUSES.length] + "," + start.plusMinutes(i).plusNanos(i % 1000 * 1000));
+				writer.newLine();
+			}
+		}
+		return file;
+	}
+
+	private static Path writeStudents(Path file, int rows) throws IOException {
+
+		try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+			writer.write("studentId,name,email,courseId");
+			writer.newLine();
+			for (int i = 0; i < rows; i++) {
+				writer.write((1001 + i) + ",Student " + i + ",student" + i + "@institute.edu," + (1 + i % 40));
+				writer.newLine();
+			}
+		}
+		return file;
+	}
+
+	// ================= LINE-BY-LINE (previous loaders) =================
+
+	private static int loadPaymentsLineByLine(Path file) {
+
+		Map<Integer, Payment> paymentMap = new HashMap<>();
+
+		try (BufferedReader reader = new BufferedReader(new FileReader(file.toFile()))) {
+			String line = reader.readLine(); // header
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.split(",");
+				if (parts.length != 7)
+					continue;
+
+				Integer paymentId = Integer.parseInt(parts[0].trim());
+				Integer studentId = Integer.parseInt(parts[1].trim());
+				Integer courseId = Integer.parseInt(parts[2].trim());
+				BigDecimal amount = new BigDecimal(parts[3].trim());
+				PaymentMode mode = PaymentMode.valueOf(parts[4].trim());
+				PaymentStatus status = PaymentStatus.valueOf(parts[5].trim());
+				LocalDateTime date = LocalDateTime.parse(parts[6].trim());
+
+				paymentMap.put(paymentId, new Payment(paymentId, studentId, courseId, amount, mode, status, date));
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Error loading " + file, e);
+		}
+		return paymentMap.size();
+	}
+
+	private static int loadStudentsLineByLine(Path file) {
+
+		Map<Integer, Student> studentMap = new HashMap<>();
+
+		// the whole file as one String, then split, as StudentServiceImpl did through FileUtil.readFile
+		StringBuilder content = new StringBuilder();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file.toFile()))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				content.append(line).append(System.lineSeparator());
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Error loading " + file, e);
+		}
+
+		String[] lines = content.toString().split("\\R");
+		for (int i = 1; i < lines.length; i++) {
+			String[] parts = lines[i].split(",");
+			if (parts.length != 4)
+				continue;
+
+			Integer id = Integer.parseInt(parts[0].trim());
+			studentMap.put(id, new Student(id, parts[1].trim(), parts[2].trim(), Integer.parseInt(parts[3].trim())));
+		}
+		return studentMap.size();
+	}
+
+	// ================= CSV BUFFER READER (current loaders) =================
+
+	private static int loadPaymentsBuffered(Path file) {
+
+		Map<Integer, Payment> paymentMap = new HashMap<>();
+
+		CsvBufferReader.forEachRow(file.toString(), true, row -> {
+			if (row.columns() != 7)
+				return;
+
+			Integer paymentId = row.getInt(0);
+			paymentMap.put(paymentId, new Payment(paymentId, row.getInt(1), row.getInt(2), row.getDecimal(3),
+					row.getEnum(4, MODES), row.getEnum(5, STATUSES), row.getDateTime(6)));
+		});
+		return paymentMap.size();
+	}
+
+	private static int loadStudentsBuffered(Path file) {
+
+		Map<Integer, Student> studentMap = new HashMap<>();
+
+		CsvBufferReader.forEachRow(file.toString(), true, row -> {
+			if (row.columns() != 4)
+				return;
+
+			Integer id = row.getInt(0);
+			studentMap.put(id, new Student(id, row.getString(1), row.getString(2), row.getInt(3)));
+		});
+		return studentMap.size();
+	}
+}
@@ -0,0 +1,167 @@
+package main;
+
+import service.LoginService;
+import service.impl.LoginServiceImpl;
+import util.FileUtil;
+import util.PasswordHasher;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Login throughput on all cores. First the cost of the password check alone,
+ * {@link PasswordHasher#verify}, at several PBKDF2 work factors. Then logins
+ * through {@link LoginServiceImpl} at the configured factor
+ * ({@code smartinstitute.passwordIterations}): each user's first login, which
+ * pays for the hash, and repeated logins answered by the verified-login cache.
+ *
+ * The login service reads data/users.csv and logs to data/, so the benchmark
+ * refuses to run where data/ already exists, and deletes it when it is done.
+ * Run it from an empty folder.
+ *
+ * Usage: java main.LoginBenchmark [seconds per factor] [users]   (default 3 64)
+ */
+public class LoginBenchmark {
+
+	private static final int[] WORK_FACTORS = { 10_000, 100_000, 310_000, 600_000 };
+	private static final int REPEATED_LOGINS = 100_000;
+
+	private static final Path DATA = Paths.get("data");
+
+	public static void main(String[] args) throws Exception {
+
+		int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		int users = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		if (Files.exists(DATA)) {
+			System.out.println("data/ already exists here; run the benchmark from an empty folder.");
+			return;
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			System.out.println("Threads: " + threads);
+
+			for (int iterations : WORK_FACTORS) {
+				System.out.println("Verify at " + iterations + " iterations: "
+						+ verifyThroughput(pool, threads, iterations, seconds) + " logins/s");
+			}
+
+			writeUsers(users);
+			LoginService loginService = new LoginServiceImpl();
+
+			// first login of every user: nothing cached yet, so each one runs PBKDF2
+			double cold = throughput(pool, users, i -> loginService.login(username(i), password(i)));
+			double cached = throughput(pool, REPEATED_LOGINS,
+					i -> loginService.login(username(i % users), password(i % users)));
+
+			System.out.println("LoginService at " + PasswordHasher.ITERATIONS + " iterations: first login "
+					+ Math.round(cold) + " logins/s, cached " + Math.round(cached) + " logins/s");
+		} finally {
+			pool.shutdownNow();
+			FileUtil.flush();
+			delete(DATA);
+		}
+
+		System.exit(0);
+	}
+
+	// Verifications per second for one stored hash, every thread checking for the given time
+	private static long verifyThroughput(ExecutorService pool, int threads, int iterations, int seconds)
+			throws Exception {
+
+		String stored = PasswordHasher.hash("secret-password", iterations);
+		PasswordHasher.verify("secret-password", stored); // warm-up
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		long start = System.nanoTime();
+
+		List<Future<Long>> counts = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			counts.add(pool.submit(() -> {
+				long count = 0;
+				while (System.nanoTime() - deadline < 0) {
+					if (!PasswordHasher.verify("secret-password", stored)) {
+						throw new IllegalStateException("Password did not verify");
+					}
+					count++;
+				}
+				return count;
+			}));
+		}
+
+		long total = 0;
+		for (Future<Long> count : counts) {
+			total += count.get();
+		}
+		return Math.round(total / ((System.nanoTime() - start) / 1e9));
+	}
+
+	// Runs the logins spread over the pool and returns logins per second
+	private static double throughput(ExecutorService pool, int logins, IntConsumer login) throws Exception {
+
+		long start = System.nanoTime();
+
+		List<Future<?>> done = new ArrayList<>();
+		for (int i = 0; i < logins; i++) {
+			int user = i;
+			done.add(pool.submit(() -> login.accept(user)));
+		}
+		for (Future<?> future : done) {
+			future.get();
+		}
+		return logins / ((System.nanoTime() - start) / 1e9);
+	}
+
+	private static String username(int i) {
+		return "user" + i;
+	}
+
+	private static String password(int i) {
+		return "password-" + i;
+	}
+
+	// Hashed at the configured factor, so no login rehashes and rewrites the file
+	private static void writeUsers(int users) throws IOException {
+
+		Files.createDirectories(DATA);
+
+		List<String> hashes = IntStream.range(0, users).parallel().mapToObj(i -> PasswordHasher.hash(password(i)))
+				.toList();
+
+		try (BufferedWriter writer = Files.newBufferedWriter(DATA.resolve("users.csv"))) {
+			writer.write("id,username,password,role");
+			writer.newLine();
+			for (int i = 0; i < users; i++) {
+				writer.write((1001 + i) + "," + username(i) + "," + hashes.get(i) + ",USER");
+				writer.newLine();
+			}
+		}
+	}
+
+	private static void delete(Path folder) throws IOException {
+
+		if (!Files.exists(folder)) {
+			return;
+		}
+		try (Stream<Path> files = Files.walk(folder)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+}
@@ -2,10 +2,6 @@ package main;
 
 import model.Role;
 import model.User;
-import service.LoginService;
-import service.RegistrationService;
-import service.impl.LoginServiceImpl;
-import service.impl.RegistrationServiceImpl;
 
 import java.util.Scanner;
 
@@ -13,14 +9,15 @@ import exception.AdminAlreadyExistsException;
 
 public class MainApp {
 
-	private final RegistrationService registrationService;
-	private final LoginService loginService;
+	private final ApplicationContext context;
 	private final Scanner scanner;
 
 	public MainApp() {
-		this.registrationService = new RegistrationServiceImpl();
-		this.loginService = new LoginServiceImpl();
+		this.context = new ApplicationContext();
 		this.scanner = new Scanner(System.in);
+
+		// load the data files while the user is still at the main menu
+		context.warmUp();
 	}
 
 	public static void main(String[] args) {
@@ -66,7 +63,7 @@ public class MainApp {
 		String role = scanner.nextLine();
 
 		try {
-			registrationService.registerUser(username, password, role);
+			context.getRegistrationService().registerUser(username, password, role);
 			System.out.println("Registered Successfully");
 		} catch (AdminAlreadyExistsException e) {
 			System.out.println(e.getMessage());
@@ -84,7 +81,7 @@ public class MainApp {
 		String password = scanner.nextLine();
 
 		try {
-			User user = loginService.login(username, password);
+			User user = context.getLoginService().login(username, password);
 			showDashboard(user);
 		} catch (Exception e) {
 			System.out.println("Login Failed ❌");
@@ -93,6 +90,7 @@ public class MainApp {
 
 	private void exitApplication() {
 		System.out.println("Exiting...");
+		context.close();
 		scanner.close();
 		System.exit(0);
 	}
@@ -102,9 +100,9 @@ public class MainApp {
 	private void showDashboard(User user) {
 
 		if (user.getRole() == Role.ADMIN) {
-			new AdminDashboard().start();
+			new AdminDashboard(context).start();
 		} else {
-			new UserDashboard().start();
+			new UserDashboard(context).start();
 		}
 	}
 
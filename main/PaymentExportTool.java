@@ -0,0 +1,47 @@
+package main;
+
+import model.Payment;
+import service.impl.PaymentServiceImpl;
+import util.FileUtil;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Writes the payments ledger as a readable CSV, whatever format the snapshot
+ * is stored in. The output has the same columns as data/payments.csv.
+ *
+ * The ledger is only read (snapshot plus journal, replayed in memory). The
+ * application may compact the journal or switch snapshot format meanwhile;
+ * such a read is detected and repeated, so the export is always one
+ * consistent version of the ledger.
+ *
+ * Usage: java main.PaymentExportTool [output.csv]
+ */
+public class PaymentExportTool {
+
+	private static final String DEFAULT_OUTPUT = "data/payments-export.csv";
+
+	public static void main(String[] args) {
+
+		String output = args.length > 0 ? args[0] : DEFAULT_OUTPUT;
+
+		List<Payment> payments = new ArrayList<>(PaymentServiceImpl.readStoredPayments().values());
+		payments.sort(Comparator.comparing(Payment::getPaymentId));
+
+		StringBuilder builder = new StringBuilder();
+		builder.append("paymentId,studentId,courseId,amount,paymentMode,status,paymentDate")
+				.append(System.lineSeparator());
+
+		for (Payment p : payments) {
+			builder.append(p.getPaymentId()).append(",").append(p.getStudentId()).append(",").append(p.getCourseId())
+					.append(",").append(p.getAmount().toPlainString()).append(",").append(p.getPaymentMode())
+					.append(",").append(p.getStatus()).append(",").append(p.getPaymentDate())
+					.append(System.lineSeparator());
+		}
+
+		FileUtil.overwriteFileDurably(output, builder.toString());
+		System.out.println("Exported " + payments.size() + " payments to " + output);
+	}
+}
@@ -0,0 +1,151 @@
+package main;
+
+import model.Payment;
+import model.PaymentMode;
+import model.PaymentStatus;
+import service.impl.PaymentSnapshotCodec;
+import util.CsvBufferReader;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Save and load time of the payments snapshot in its two formats, CSV
+ * (data/payments.csv) and the fixed-width binary one (data/payments.bin).
+ *
+ * Builds a synthetic ledger in memory, then for each format times writing
+ * the whole snapshot to a temp file and reading it back into a map, and
+ * prints the median of the rounds after one warm-up round along with the
+ * file sizes. The data/ folder is not touched, and files are not forced,
+ * so the numbers are the cost of the format rather than of the disk.
+ *
+ * Usage: java main.PaymentSnapshotBenchmark [payments] [rounds]   (default 1000000 5)
+ */
+public class PaymentSnapshotBenchmark {
+
+	private static final PaymentMode[] MODES = PaymentMode.values();
+	private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+	public static void main(String[] args) throws IOException {
+
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		List<Payment> payments = ledger(count);
+
+		Path folder = Files.createTempDirectory("payment-snapshot-benchmark");
+		Path csv = folder.resolve("payments.csv");
+		Path binary = folder.resolve("payments.bin");
+
+		try {
+			System.out.println("Payments: " + count + ", rounds: " + rounds);
+
+			long csvSave = median(rounds, () -> write(csv, csvSnapshot(payments)));
+			long csvLoad = median(rounds, () -> loadCsv(csv));
+			long binarySave = median(rounds, () -> write(binary, PaymentSnapshotCodec.encode(payments)));
+			long binaryLoad = median(rounds, () -> loadBinary(binary));
+
+			System.out.println("CSV    : save " + csvSave + " ms, load " + csvLoad + " ms, " + Files.size(csv) / 1024
+					+ " KB");
+			System.out.println("Binary : save " + binarySave + " ms, load " + binaryLoad + " ms, "
+					+ Files.size(binary) / 1024 + " KB");
+		} finally {
+			Files.deleteIfExists(csv);
+			Files.deleteIfExists(binary);
+			Files.deleteIfExists(folder);
+		}
+
+		System.exit(0);
+	}
+
+	private static List<Payment> ledger(int count) {
+
+		LocalDateTime start = LocalDateTime.of(2020, 1, 1, 9, 0);
+		List<Payment> payments = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++) {
+			payments.add(new Payment(1001 + i, 1001 + i % 5000, 1 + i % 40, BigDecimal.valueOf(50_000 + i % 900_000, 2),
+					MODES[i % MODES.length], STATUSES[i % STATUSES.length],
+					start.plusMinutes(i).plusNanos(i % 1000 * 1000)));
+		}
+		return payments;
+	}
+
+	// Runs once to warm up, then returns the median of the timed rounds
+	private static long median(int rounds, Supplier<Integer> task) {
+
+		task.get();
+
+		long[] times = new long[rounds];
+		for (int i = 0; i < rounds; i++) {
+			long start = System.nanoTime();
+			task.get();
+			times[i] = (System.nanoTime() - start) / 1_000_000;
+		}
+		Arrays.sort(times);
+		return times[rounds / 2];
+	}
+
+	// Same layout as PaymentServiceImpl's CSV snapshot
+	private static byte[] csvSnapshot(List<Payment> payments) {
+
+		StringBuilder builder = new StringBuilder();
+		builder.append("paymentId,studentId,courseId,amount,paymentMode,status,paymentDate")
+				.append(System.lineSeparator());
+
+		for (Payment p : payments) {
+			builder.append(p.getPaymentId()).append(",").append(p.getStudentId()).append(",").append(p.getCourseId())
+					.append(",").append(p.getAmount().toPlainString()).append(",").append(p.getPaymentMode())
+					.append(",").append(p.getStatus()).append(",").append(p.getPaymentDate())
+					.append(System.lineSeparator());
+		}
+		return builder.toString().getBytes(Charset.defaultCharset());
+	}
+
+	private static int write(Path file, byte[] snapshot) {
+		try {
+			Files.write(file, snapshot);
+			return snapshot.length;
+		} catch (IOException e) {
+			throw new RuntimeException("Error writing " + file, e);
+		}
+	}
+
+	private static int loadCsv(Path file) {
+
+		Map<Integer, Payment> paymentMap = new HashMap<>();
+
+		CsvBufferReader.forEachRow(file.toString(), true, row -> {
+			if (row.columns() != 7)
+				return;
+
+			Integer paymentId = row.getInt(0);
+			paymentMap.put(paymentId, new Payment(paymentId, row.getInt(1), row.getInt(2), row.getDecimal(3),
+					row.getEnum(4, MODES), row.getEnum(5, STATUSES), row.getDateTime(6)));
+		});
+		return paymentMap.size();
+	}
+
+	private static int loadBinary(Path file) {
+
+		Map<Integer, Payment> paymentMap = new HashMap<>();
+
+		try {
+			PaymentSnapshotCodec.decode(ByteBuffer.wrap(Files.readAllBytes(file)), file.toString(), paymentMap);
+		} catch (IOException e) {
+			throw new RuntimeException("Error reading " + file, e);
+		}
+		return paymentMap.size();
+	}
+}
@@ -0,0 +1,180 @@
+package main;
+
+import model.ReportMetrics;
+import model.ReportType;
+import service.ReportService;
+import service.impl.ReportServiceImpl;
+import service.impl.ServiceBootstrap;
+import util.FileUtil;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Time of the student report at 10k and 100k students, through the real
+ * services: the data files are generated, loaded by {@link ServiceBootstrap},
+ * and every round runs the report on a new {@link ReportServiceImpl}, so the
+ * rows are built from a snapshot rather than patched from kept ones. The time
+ * is the report's own, as recorded in its metrics (snapshot, join, formatting
+ * and archive), median of the rounds after one warm-up round.
+ *
+ * The services read data/ and write reports/ in the working directory, so
+ * the benchmark refuses to run where either already exists, and deletes both
+ * when it is done. Run it from an empty folder.
+ *
+ * Usage: java main.StudentReportBenchmark [students] [rounds]   (default 10000 and 100000, 5)
+ */
+public class StudentReportBenchmark {
+
+	private static final int COURSES = 40;
+	private static final int ATTENDANCE_DAYS = 10;
+
+	private static final Path DATA = Paths.get("data");
+	private static final Path REPORTS = Paths.get("reports");
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+
+		int[] sizes = args.length > 0 ? new int[] { Integer.parseInt(args[0]) } : new int[] { 10_000, 100_000 };
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		if (Files.exists(DATA) || Files.exists(REPORTS)) {
+			System.out.println("data/ or reports/ already exists here; run the benchmark from an empty folder.");
+			return;
+		}
+
+		try {
+			for (int students : sizes) {
+				writeData(students);
+
+				ServiceBootstrap services = ServiceBootstrap.load();
+
+				long[] times = new long[rounds];
+				runReport(services);
+				for (int i = 0; i < rounds; i++) {
+					times[i] = runReport(services);
+				}
+				Arrays.sort(times);
+
+				System.out.println("Students: " + students + ", rounds: " + rounds + ", student report "
+						+ times[rounds / 2] + " ms");
+
+				FileUtil.flush();
+				delete(DATA);
+				delete(REPORTS);
+			}
+		} finally {
+			FileUtil.flush();
+			delete(DATA);
+			delete(REPORTS);
+		}
+
+		System.exit(0);
+	}
+
+	// One student report on a fresh report service; returns its recorded time
+	private static long runReport(ServiceBootstrap services) throws InterruptedException {
+
+		ReportService reports = new ReportServiceImpl(services.getStudentService(), services.getTeacherService(),
+				services.getAttendanceService(), services.getPaymentService());
+
+		try {
+			reports.generateStudentReportAsync();
+
+			ReportMetrics.ReportStats stats;
+			while ((stats = reports.getMetrics().getStats().get(ReportType.STUDENT)).getRuns() == 0) {
+				Thread.sleep(1);
+			}
+			if (stats.getFailures() > 0) {
+				throw new IllegalStateException("Student report failed: " + stats.getLastError());
+			}
+			return stats.getLastMillis();
+		} finally {
+			reports.shutdown();
+		}
+	}
+
+	// ================= DATA =================
+
+	private static void writeData(int students) throws IOException {
+
+		Files.createDirectories(DATA);
+
+		try (BufferedWriter writer = Files.newBufferedWriter(DATA.resolve("teachers.csv"))) {
+			writer.write("teacherId,name,subject,salary");
+			writer.newLine();
+			for (int i = 1; i <= COURSES; i++) {
+				writer.write(i + ",Teacher " + i + ",Subject " + i + ",50000.00");
+				writer.newLine();
+			}
+		}
+
+		try (BufferedWriter writer = Files.newBufferedWriter(DATA.resolve("courses.csv"))) {
+			writer.write("courseId,courseName,duration,fees,teacherId");
+			writer.newLine();
+			for (int i = 1; i <= COURSES; i++) {
+				writer.write(i + ",Course " + i + ",6,25000.00," + i);
+				writer.newLine();
+			}
+		}
+
+		try (BufferedWriter writer = Files.newBufferedWriter(DATA.resolve("students.csv"))) {
+			writer.write("studentId,name,email,courseId");
+			writer.newLine();
+			for (int i = 0; i < students; i++) {
+				writer.write((1001 + i) + ",Student " + i + ",student" + i + "@institute.edu," + (1 + i % COURSES));
+				writer.newLine();
+			}
+		}
+
+		// a paid instalment for everyone, and the rest still pending for every other student
+		LocalDateTime paidAt = LocalDateTime.of(2024, 1, 1, 9, 0);
+		try (BufferedWriter writer = Files.newBufferedWriter(DATA.resolve("payments.csv"))) {
+			writer.write("paymentId,studentId,courseId,amount,paymentMode,status,paymentDate");
+			writer.newLine();
+			int paymentId = 1001;
+			for (int i = 0; i < students; i++) {
+				int courseId = 1 + i % COURSES;
+				writer.write((paymentId++) + "," + (1001 + i) + "," + courseId + ",12500.00,UPI,SUCCESS,"
+						+ paidAt.plusMinutes(i));
+				writer.newLine();
+				if (i % 2 == 0) {
+					writer.write((paymentId++) + "," + (1001 + i) + "," + courseId + ",12500.00,CASH,PENDING,"
+							+ paidAt.plusMinutes(i));
+					writer.newLine();
+				}
+			}
+		}
+
+		LocalDate firstDay = LocalDate.of(2024, 1, 1);
+		try (BufferedWriter writer = Files.newBufferedWriter(DATA.resolve("attendance.csv"))) {
+			writer.write("studentId,date,present");
+			writer.newLine();
+			for (int day = 0; day < ATTENDANCE_DAYS; day++) {
+				for (int i = 0; i < students; i++) {
+					writer.write((1001 + i) + "," + firstDay.plusDays(day) + "," + ((i + day) % 4 != 0));
+					writer.newLine();
+				}
+			}
+		}
+	}
+
+	private static void delete(Path folder) throws IOException {
+
+		if (!Files.exists(folder)) {
+			return;
+		}
+		try (Stream<Path> files = Files.walk(folder)) {
+			for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+				Files.delete(file);
+			}
+		}
+	}
+}
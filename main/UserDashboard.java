@@ -2,18 +2,11 @@ package main;
 
 import model.Course;
 import model.Payment;
-import model.PaymentStatus;
 import model.Student;
 import service.AttendanceService;
 import service.CourseService;
 import service.PaymentService;
 import service.StudentService;
-import service.TeacherService;
-import service.impl.AttendanceServiceImpl;
-import service.impl.CourseServiceImpl;
-import service.impl.PaymentServiceImpl;
-import service.impl.StudentServiceImpl;
-import service.impl.TeacherServiceImpl;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -26,14 +19,20 @@ public class UserDashboard {
 	private final Scanner sc = new Scanner(System.in);
 
 	// Services
-	private final AttendanceService attendanceService = new AttendanceServiceImpl();
-	private final TeacherService teacherService = new TeacherServiceImpl();
-	private final CourseService courseService = new CourseServiceImpl(teacherService);
-	private final PaymentService paymentService = new PaymentServiceImpl(courseService);
-	private final StudentService studentService = new StudentServiceImpl(paymentService, attendanceService);
+	private final AttendanceService attendanceService;
+	private final CourseService courseService;
+	private final PaymentService paymentService;
+	private final StudentService studentService;
 
 	private Student currentStudent;
 
+	public UserDashboard(ApplicationContext context) {
+		this.attendanceService = context.getAttendanceService();
+		this.courseService = context.getCourseService();
+		this.paymentService = context.getPaymentService();
+		this.studentService = context.getStudentService();
+	}
+
 	public void start() {
 
 		// 1️⃣ Show all students
@@ -115,10 +114,7 @@ public class UserDashboard {
 
 		BigDecimal courseFee = course.getFees();
 
-		List<Payment> payments = paymentService.getPaymentsByStudent(currentStudent.getStudentId());
-
-		BigDecimal totalPaid = payments.stream().filter(p -> p.getStatus() == PaymentStatus.SUCCESS)
-				.map(Payment::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+		BigDecimal totalPaid = paymentService.getStudentPaymentSummary(currentStudent.getStudentId()).getTotalPaid();
 
 		BigDecimal pending = courseFee.subtract(totalPaid);
 		if (pending.compareTo(BigDecimal.ZERO) < 0)
@@ -0,0 +1,37 @@
+package model;
+
+/**
+ * Notice that one record changed. Carries only which record, not what changed;
+ * listeners read the new state from the service.
+ */
+public final class ChangeEvent {
+
+    public enum Type {
+        STUDENT,
+        TEACHER,
+        ATTENDANCE,
+        PAYMENT
+    }
+
+    private final Type type;
+    private final Integer id;
+
+    public ChangeEvent(Type type, Integer id) {
+        this.type = type;
+        this.id = id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /** Teacher id for TEACHER events, otherwise the id of the student affected. */
+    public Integer getId() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + id;
+    }
+}
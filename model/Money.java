@@ -0,0 +1,89 @@
+package model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * An amount of rupees held as a whole number of paise. Arithmetic is exact and
+ * fails on overflow instead of wrapping; use {@link #toBigDecimal()} at the
+ * service API boundary.
+ */
+public final class Money implements Comparable<Money> {
+
+    public static final Money ZERO = new Money(0);
+
+    private final long paise;
+
+    private Money(long paise) {
+        this.paise = paise;
+    }
+
+    public static Money ofPaise(long paise) {
+        return paise == 0 ? ZERO : new Money(paise);
+    }
+
+    /** Fails if the amount has more than two decimal places or does not fit in a long. */
+    public static Money of(BigDecimal amount) {
+        try {
+            return ofPaise(amount.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount is not a whole number of paise: " + amount);
+        }
+    }
+
+    public Money plus(Money other) {
+        return other.paise == 0 ? this : ofPaise(addExact(paise, other.paise));
+    }
+
+    public Money minus(Money other) {
+        return other.paise == 0 ? this : ofPaise(subtractExact(paise, other.paise));
+    }
+
+    public static long addExact(long paise, long otherPaise) {
+        try {
+            return Math.addExact(paise, otherPaise);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Money overflow: " + paise + " + " + otherPaise + " paise");
+        }
+    }
+
+    public static long subtractExact(long paise, long otherPaise) {
+        try {
+            return Math.subtractExact(paise, otherPaise);
+        } catch (ArithmeticException e) {
+            throw new ArithmeticException("Money overflow: " + paise + " - " + otherPaise + " paise");
+        }
+    }
+
+    public long getPaise() {
+        return paise;
+    }
+
+    public int signum() {
+        return Long.signum(paise);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(paise, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(paise, other.paise);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money other && paise == other.paise;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(paise);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
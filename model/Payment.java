@@ -14,6 +14,9 @@ public class Payment {
     private PaymentStatus status;
     private LocalDateTime paymentDate;
 
+    // The amount as Money, converted once per amount rather than on every index update
+    private volatile Money money;
+
     public Payment(Integer paymentId,
                    Integer studentId,
                    Integer courseId,
@@ -49,6 +52,17 @@ public class Payment {
 
     public void setAmount(BigDecimal amount) {
         this.amount = amount;
+        this.money = null;
+    }
+
+    /** The amount in paise; fails like {@link Money#of} if it has more than two decimal places. */
+    public Money getMoney() {
+        Money cached = money;
+        if (cached == null) {
+            cached = Money.of(amount);
+            money = cached;
+        }
+        return cached;
     }
 
     public PaymentMode getPaymentMode() {
@@ -0,0 +1,71 @@
+package model;
+
+import java.math.BigDecimal;
+
+public final class PaymentSummary {
+
+    public static final PaymentSummary EMPTY = new PaymentSummary(0, 0, 0);
+
+    // Totals in paise, so updating and reading them never allocates a BigDecimal
+    private final long paidPaise;
+    private final long pendingPaise;
+    private final int paymentCount;
+
+    private PaymentSummary(long paidPaise, long pendingPaise, int paymentCount) {
+        this.paidPaise = paidPaise;
+        this.pendingPaise = pendingPaise;
+        this.paymentCount = paymentCount;
+    }
+
+    public PaymentSummary(Money totalPaid, Money totalPending, int paymentCount) {
+        this(totalPaid.getPaise(), totalPending.getPaise(), paymentCount);
+    }
+
+    // Contribution of a single payment to the totals it belongs to
+    public static PaymentSummary of(Payment payment) {
+        long amount = payment.getMoney().getPaise();
+        return new PaymentSummary(
+                payment.getStatus() == PaymentStatus.SUCCESS ? amount : 0,
+                payment.getStatus() == PaymentStatus.PENDING ? amount : 0,
+                1);
+    }
+
+    public PaymentSummary plus(PaymentSummary other) {
+        return new PaymentSummary(Money.addExact(paidPaise, other.paidPaise),
+                Money.addExact(pendingPaise, other.pendingPaise),
+                paymentCount + other.paymentCount);
+    }
+
+    public PaymentSummary minus(PaymentSummary other) {
+        return new PaymentSummary(Money.subtractExact(paidPaise, other.paidPaise),
+                Money.subtractExact(pendingPaise, other.pendingPaise),
+                paymentCount - other.paymentCount);
+    }
+
+    public Money getPaid() {
+        return Money.ofPaise(paidPaise);
+    }
+
+    public Money getPending() {
+        return Money.ofPaise(pendingPaise);
+    }
+
+    public BigDecimal getTotalPaid() {
+        return BigDecimal.valueOf(paidPaise, 2);
+    }
+
+    public BigDecimal getTotalPending() {
+        return BigDecimal.valueOf(pendingPaise, 2);
+    }
+
+    public int getPaymentCount() {
+        return paymentCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PaymentSummary [totalPaid=" + getTotalPaid() +
+                ", totalPending=" + getTotalPending() +
+                ", paymentCount=" + paymentCount + "]";
+    }
+}
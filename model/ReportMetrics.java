@@ -0,0 +1,125 @@
+package model;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+
+/** Point-in-time counters of the report workers, for monitoring. */
+public final class ReportMetrics {
+
+    /** Runs of one report type since startup. */
+    public static final class ReportStats {
+
+        private final long runs;
+        private final long failures;
+        private final long lastMillis;
+        private final long maxMillis;
+        private final long totalMillis;
+        private final String lastError;
+
+        public ReportStats(long runs, long failures, long lastMillis, long maxMillis, long totalMillis,
+                String lastError) {
+            this.runs = runs;
+            this.failures = failures;
+            this.lastMillis = lastMillis;
+            this.maxMillis = maxMillis;
+            this.totalMillis = totalMillis;
+            this.lastError = lastError;
+        }
+
+        public long getRuns() {
+            return runs;
+        }
+
+        /** Failed runs, and batch runs that never started because their inputs failed. */
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getLastMillis() {
+            return lastMillis;
+        }
+
+        public long getMaxMillis() {
+            return maxMillis;
+        }
+
+        public long getAverageMillis() {
+            return runs == 0 ? 0 : totalMillis / runs;
+        }
+
+        /** Message of the most recent failure, or null if the report never failed. */
+        public String getLastError() {
+            return lastError;
+        }
+
+        @Override
+        public String toString() {
+            return "runs=" + runs + ", failures=" + failures + ", last=" + lastMillis + " ms, avg="
+                    + getAverageMillis() + " ms, max=" + maxMillis + " ms"
+                    + (lastError == null ? "" : ", lastError=" + lastError);
+        }
+    }
+
+    private final int queueDepth;
+    private final int queueCapacity;
+    private final int activeWorkers;
+    private final long rejected;
+    private final long coalesced;
+    private final Map<ReportType, ReportStats> stats;
+    private final Map<ReportType, Duration> schedules;
+
+    public ReportMetrics(int queueDepth, int queueCapacity, int activeWorkers, long rejected, long coalesced,
+            Map<ReportType, ReportStats> stats, Map<ReportType, Duration> schedules) {
+        this.queueDepth = queueDepth;
+        this.queueCapacity = queueCapacity;
+        this.activeWorkers = activeWorkers;
+        this.rejected = rejected;
+        this.coalesced = coalesced;
+        this.stats = Collections.unmodifiableMap(stats);
+        this.schedules = Collections.unmodifiableMap(schedules);
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getActiveWorkers() {
+        return activeWorkers;
+    }
+
+    /** Requests turned away because the queue was full. */
+    public long getRejected() {
+        return rejected;
+    }
+
+    /** Requests answered by a run of the same report that was already queued. */
+    public long getCoalesced() {
+        return coalesced;
+    }
+
+    public Map<ReportType, ReportStats> getStats() {
+        return stats;
+    }
+
+    /** Interval of every scheduled report. */
+    public Map<ReportType, Duration> getSchedules() {
+        return schedules;
+    }
+
+    @Override
+    public String toString() {
+
+        StringBuilder builder = new StringBuilder().append("Queue        : ").append(queueDepth).append('/')
+                .append(queueCapacity).append(", active workers: ").append(activeWorkers).append('\n')
+                .append("Rejected     : ").append(rejected).append(", coalesced: ").append(coalesced).append('\n');
+
+        stats.forEach((type, stat) -> builder.append(type).append(": ").append(stat)
+                .append(schedules.containsKey(type) ? ", every " + schedules.get(type) : "").append('\n'));
+        return builder.toString();
+    }
+}
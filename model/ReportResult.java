@@ -0,0 +1,52 @@
+package model;
+
+/** Outcome of one report in a batch run. */
+public final class ReportResult {
+
+    public enum Status {
+        SUCCESS,
+        FAILED
+    }
+
+    private final ReportType type;
+    private final Status status;
+    private final long elapsedMillis;
+    private final String error;
+
+    private ReportResult(ReportType type, Status status, long elapsedMillis, String error) {
+        this.type = type;
+        this.status = status;
+        this.elapsedMillis = elapsedMillis;
+        this.error = error;
+    }
+
+    public static ReportResult success(ReportType type, long elapsedMillis) {
+        return new ReportResult(type, Status.SUCCESS, elapsedMillis, null);
+    }
+
+    public static ReportResult failed(ReportType type, long elapsedMillis, String error) {
+        return new ReportResult(type, Status.FAILED, elapsedMillis, error);
+    }
+
+    public ReportType getType() {
+        return type;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /** Failure message, or null when the report succeeded. */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return type + ": " + status + " in " + elapsedMillis + " ms" + (error == null ? "" : " (" + error + ")");
+    }
+}
@@ -0,0 +1,22 @@
+package model;
+
+public enum ReportType {
+
+    STUDENT("student-report"),
+    TEACHER("teacher-report"),
+    STUDENT_BY_COURSE("student-by-course-report"),
+    PENDING_FEES("pending-fees-report"),
+    LOW_ATTENDANCE("low-attendance-report"),
+    TEACHER_COURSE_MAPPING("teacher-course-mapping-report");
+
+    private final String baseName;
+
+    ReportType(String baseName) {
+        this.baseName = baseName;
+    }
+
+    /** File name without extension; each archived report adds a timestamp and its format's extension. */
+    public String getBaseName() {
+        return baseName;
+    }
+}
@@ -3,6 +3,7 @@ package model;
 import java.math.BigDecimal;
 
 import util.IdGenerator;
+import util.IdGenerator.Sequence;
 
 public class Teacher {
 
@@ -14,7 +15,7 @@ public class Teacher {
 	// ID generated inside constructor
 	public Teacher(String name, String subject, BigDecimal salary) {
 
-		this.teacherId = IdGenerator.generateId();
+		this.teacherId = IdGenerator.generateId(Sequence.TEACHER);
 		this.name = name;
 		this.subject = subject;
 		this.salary = salary;
@@ -1,15 +1,34 @@
 package service;
 
+import model.ChangeEvent;
+import util.PersistentIntMap;
+
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 public interface AttendanceService {
 
 	void markAttendance(Integer studentId, boolean present);
 
+	void markAttendanceForCourse(Integer courseId, LocalDate date, Map<Integer, Boolean> marks);
+
     double calculateAttendancePercentage(Integer studentId);
     
     List<Integer> getStudentsBelowAttendance(double threshold);
     
     boolean hasAttendance(Integer studentId);
+
+    /** Percentages of every student with attendance records, keyed by student id, copied from one snapshot. */
+    Map<Integer, Double> getAttendancePercentages();
+
+    /** Attendance percentage of every student with records at this instant, for reports; taking it is O(1). */
+    PersistentIntMap<Double> getAttendanceSnapshot();
+
+    /** Calls the listener after each change to a student's attendance, once the change is in the snapshot. */
+    void addChangeListener(Consumer<ChangeEvent> listener);
+
+    void removeChangeListener(Consumer<ChangeEvent> listener);
 	
 }
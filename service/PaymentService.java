@@ -1,10 +1,14 @@
 package service;
 
+import model.ChangeEvent;
 import model.Payment;
+import model.PaymentSummary;
+import util.PersistentIntMap;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface PaymentService {
 
@@ -26,4 +30,19 @@ public interface PaymentService {
 
 	void createPendingPayment(Integer studentId, Integer courseId, BigDecimal courseFee);
 
+	PaymentSummary getStudentPaymentSummary(Integer studentId);
+
+	PaymentSummary getCoursePaymentSummary(Integer courseId);
+
+	/** Summaries of every student with payments, keyed by student id, copied from one snapshot. */
+	Map<Integer, PaymentSummary> getStudentPaymentSummaries();
+
+	/** Payment summary of every student with payments at this instant, for reports; taking it is O(1). */
+	PersistentIntMap<PaymentSummary> getPaymentSummarySnapshot();
+
+	/** Calls the listener after each change to a student's payments, once the change is in the snapshot. */
+	void addChangeListener(Consumer<ChangeEvent> listener);
+
+	void removeChangeListener(Consumer<ChangeEvent> listener);
+
 }
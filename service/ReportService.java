@@ -1,5 +1,13 @@
 package service;
 
+import model.ReportMetrics;
+import model.ReportResult;
+import model.ReportType;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 public interface ReportService {
 
 	    void generateStudentReportAsync();
@@ -9,6 +17,14 @@ public interface ReportService {
 	    void generatePendingFeesReportAsync();
 	    void generateLowAttendanceReportAsync(double threshold);
 	    void generateTeacherCourseMappingReportAsync();
-	    void generateAllReportsAsync();
+	    /** Runs every report as one batch; completes with each report's status and timing. */
+	    CompletableFuture<Map<ReportType, ReportResult>> generateAllReportsAsync();
+
+	    /** Runs the report every interval from now on, replacing any earlier schedule of it. */
+	    void scheduleReport(ReportType type, Duration interval);
+	    void cancelScheduledReport(ReportType type);
+
+	    /** Queue depth, run times and failures of the report workers. */
+	    ReportMetrics getMetrics();
 	    void shutdown();
 }
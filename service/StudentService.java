@@ -3,8 +3,11 @@ package service;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
+import model.ChangeEvent;
 import model.Student;
+import util.PersistentIntMap;
 
 public interface StudentService {
 
@@ -21,5 +24,13 @@ public interface StudentService {
     void deleteStudent(Integer studentId);
     
     Map<Integer, List<Student>> getStudentsGroupedByCourse();
+
+    /** Immutable view of all students at this instant, for reports; taking it is O(1). */
+    PersistentIntMap<Student> getStudentSnapshot();
+
+    /** Calls the listener after each change to a student, once the change is in the snapshot. */
+    void addChangeListener(Consumer<ChangeEvent> listener);
+
+    void removeChangeListener(Consumer<ChangeEvent> listener);
 	
 }
@@ -2,8 +2,11 @@ package service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+import model.ChangeEvent;
 import model.Teacher;
+import util.PersistentIntMap;
 
 public interface TeacherService {
 
@@ -17,5 +20,13 @@ public interface TeacherService {
     void deleteTeacher(Integer teacherId);
     
     Map<Integer, String> getTeacherCourseMapping();
+
+    /** Immutable view of all teachers at this instant, for reports; taking it is O(1). */
+    PersistentIntMap<Teacher> getTeacherSnapshot();
+
+    /** Calls the listener after each change to a teacher, once the change is in the snapshot. */
+    void addChangeListener(Consumer<ChangeEvent> listener);
+
+    void removeChangeListener(Consumer<ChangeEvent> listener);
 	
 }
@@ -0,0 +1,97 @@
+package service.impl;
+
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.function.BiConsumer;
+
+/**
+ * Compact attendance history of one student: bit i of {@code marked} says the
+ * student was marked on day {@code baseDay + i}, bit i of {@code present} holds
+ * the mark itself. A year of attendance fits in two ~48 byte bitsets.
+ */
+final class AttendanceBitmap {
+
+	private long baseDay;
+	private BitSet marked = new BitSet();
+	private BitSet present = new BitSet();
+
+	AttendanceBitmap(LocalDate firstDay) {
+		this.baseDay = firstDay.toEpochDay();
+	}
+
+	synchronized boolean isMarked(LocalDate date) {
+		long offset = date.toEpochDay() - baseDay;
+		return offset >= 0 && offset <= Integer.MAX_VALUE && marked.get((int) offset);
+	}
+
+	/**
+	 * Marks the day unless it is already marked; check and set happen under the
+	 * same lock so concurrent marks for one student cannot both succeed.
+	 *
+	 * @return false if the day was already marked
+	 */
+	synchronized boolean tryMark(LocalDate date, boolean isPresent) {
+		if (isMarked(date)) {
+			return false;
+		}
+		mark(date, isPresent);
+		return true;
+	}
+
+	synchronized void mark(LocalDate date, boolean isPresent) {
+		int offset = offsetOf(date);
+		marked.set(offset);
+		present.set(offset, isPresent);
+	}
+
+	synchronized void unmark(LocalDate date) {
+		if (isMarked(date)) {
+			int offset = (int) (date.toEpochDay() - baseDay);
+			marked.clear(offset);
+			present.clear(offset);
+		}
+	}
+
+	synchronized int presentDays() {
+		return present.cardinality();
+	}
+
+	synchronized int markedDays() {
+		return marked.cardinality();
+	}
+
+	/** Visits every marked day in date order. */
+	synchronized void forEachMarked(BiConsumer<LocalDate, Boolean> action) {
+		for (int i = marked.nextSetBit(0); i >= 0; i = marked.nextSetBit(i + 1)) {
+			action.accept(LocalDate.ofEpochDay(baseDay + i), present.get(i));
+		}
+	}
+
+	private int offsetOf(LocalDate date) {
+		long offset = date.toEpochDay() - baseDay;
+		if (offset < 0) {
+			rebase(date.toEpochDay());
+			offset = 0;
+		}
+		if (offset > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Attendance date out of range: " + date);
+		}
+		return (int) offset;
+	}
+
+	// Only happens for back-dated marks; shifts both bitsets so the new day becomes bit 0
+	private void rebase(long newBaseDay) {
+		int shift = Math.toIntExact(baseDay - newBaseDay);
+		BitSet shiftedMarked = new BitSet();
+		BitSet shiftedPresent = new BitSet();
+
+		for (int i = marked.nextSetBit(0); i >= 0; i = marked.nextSetBit(i + 1)) {
+			shiftedMarked.set(i + shift);
+			shiftedPresent.set(i + shift, present.get(i));
+		}
+
+		marked = shiftedMarked;
+		present = shiftedPresent;
+		baseDay = newBaseDay;
+	}
+}
@@ -1,68 +1,108 @@
 package service.impl;
 
-import model.Attendance;
+import model.ChangeEvent;
+import model.Student;
 import service.AttendanceService;
+import service.StudentService;
 import util.FileUtil;
+import util.ChangeListeners;
+import util.CsvBufferReader;
+import util.PersistentIntMap;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import exception.NoRecordAttendanceException;
 
 public class AttendanceServiceImpl implements AttendanceService {
 
-	private final Map<Integer, List<Attendance>> attendanceMap = new ConcurrentHashMap<>();
+	private final Map<Integer, AttendanceBitmap> attendanceMap = new ConcurrentHashMap<>();
 
-	private static final String ATTENDANCE_FILE = "data/attendance.csv";
+	/* Present/total counters per student, also kept ordered by percentage for threshold queries. */
+	private final Map<Integer, AttendanceCount> countByStudent = new ConcurrentHashMap<>();
+	private final NavigableSet<AttendanceCount> countsByPercentage = new ConcurrentSkipListSet<>(
+			Comparator.comparingDouble(AttendanceCount::percentage).thenComparing(AttendanceCount::studentId));
 
-	private void loadAttendanceFromFile() {
+	// Published percentages for snapshots; replaced under the countsByPercentage lock
+	private volatile PersistentIntMap<Double> publishedPercentages = PersistentIntMap.empty();
+	private final ChangeListeners listeners = new ChangeListeners();
 
-		File file = new File(ATTENDANCE_FILE);
+	// Single marks share the read lock, as each student's bitmap already makes check-and-mark atomic;
+	// a course roll-call takes the write lock so no reader or file rewrite sees it half applied.
+	private final ReentrantReadWriteLock markLock = new ReentrantReadWriteLock();
 
-		if (!file.exists() || file.length() == 0) {
-			return; // nothing to load
-		}
+	static final String ATTENDANCE_FILE = "data/attendance.csv";
+	private static final String ATTENDANCE_LOG = "data/attendance-logs.txt";
 
-		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+	// Needed only to validate course roll-calls; wired after construction to break the cycle
+	// with StudentServiceImpl, which depends on this service.
+	private volatile StudentService studentService;
 
-			String line;
-			boolean isFirstLine = true;
+	static Map<Integer, AttendanceBitmap> loadAttendanceFromFile() {
 
-			while ((line = reader.readLine()) != null) {
+		Map<Integer, AttendanceBitmap> attendanceMap = new HashMap<>();
 
-				// Skip header
-				if (isFirstLine) {
-					isFirstLine = false;
-					continue;
-				}
+		try {
 
-				String[] parts = line.trim().split(",");
+			CsvBufferReader.forEachRow(ATTENDANCE_FILE, true, row -> {
 
-				if (parts.length != 3)
-					continue;
+				if (row.columns() != 3)
+					return;
 
-				Integer studentId = Integer.parseInt(parts[0]);
-				LocalDate date = LocalDate.parse(parts[1]);
-				Boolean present = Boolean.parseBoolean(parts[2]);
+				Integer studentId = row.getInt(0);
+				LocalDate date = row.getDate(1);
+				boolean present = row.getBoolean(2);
 
-				Attendance attendance = new Attendance(studentId, date, present);
-
-				attendanceMap.computeIfAbsent(studentId, k -> new CopyOnWriteArrayList<>()).add(attendance);
-			}
+				attendanceMap.computeIfAbsent(studentId, k -> new AttendanceBitmap(date)).mark(date, present);
+			});
 
 		} catch (Exception e) {
 			throw new RuntimeException("Error loading attendance file", e);
 		}
+
+		return attendanceMap;
 	}
 
 	public AttendanceServiceImpl() {
-		loadAttendanceFromFile();
+		this(loadAttendanceFromFile());
+	}
+
+	AttendanceServiceImpl(Map<Integer, AttendanceBitmap> loadedAttendance) {
+		attendanceMap.putAll(loadedAttendance);
+		attendanceMap.forEach((studentId, days) -> rank(null,
+				new AttendanceCount(studentId, days.presentDays(), days.markedDays())));
+	}
+
+	public void setStudentService(StudentService studentService) {
+		this.studentService = studentService;
+	}
+
+	private void count(Integer studentId, boolean present) {
+		synchronized (countsByPercentage) {
+			AttendanceCount previous = countByStudent.get(studentId);
+			rank(previous, previous == null ? new AttendanceCount(studentId, present ? 1 : 0, 1)
+					: previous.plus(present));
+		}
+	}
+
+	private void rank(AttendanceCount previous, AttendanceCount updated) {
+		if (previous != null) {
+			countsByPercentage.remove(previous);
+		}
+		countsByPercentage.add(updated);
+		countByStudent.put(updated.studentId(), updated);
+		publishedPercentages = publishedPercentages.plus(updated.studentId(), updated.percentage());
+		listeners.fire(ChangeEvent.Type.ATTENDANCE, updated.studentId());
 	}
 
 	private void validateStudentId(Integer studentId) {
@@ -78,16 +118,15 @@ public class AttendanceServiceImpl implements AttendanceService {
 		// Add header
 		builder.append("studentId,date,present").append(System.lineSeparator());
 
-		for (Map.Entry<Integer, List<Attendance>> entry : attendanceMap.entrySet()) {
+		for (Map.Entry<Integer, AttendanceBitmap> entry : attendanceMap.entrySet()) {
 
-			for (Attendance attendance : entry.getValue()) {
+			Integer studentId = entry.getKey();
 
-				builder.append(attendance.getStudentId()).append(",").append(attendance.getDate()).append(",")
-						.append(attendance.getPresent()).append(System.lineSeparator());
-			}
+			entry.getValue().forEachMarked((date, present) -> builder.append(studentId).append(",").append(date)
+					.append(",").append(present).append(System.lineSeparator()));
 		}
 
-		FileUtil.overwriteFile(ATTENDANCE_FILE, builder.toString());
+		FileUtil.writeSnapshot(ATTENDANCE_FILE, builder.toString());
 	}
 
 	@Override
@@ -95,27 +134,97 @@ public class AttendanceServiceImpl implements AttendanceService {
 
 		validateStudentId(studentId);
 
-		attendanceMap.putIfAbsent(studentId, new CopyOnWriteArrayList<>());
+		LocalDate today = LocalDate.now();
 
-		List<Attendance> records = attendanceMap.get(studentId);
+		markLock.readLock().lock();
+		try {
+			AttendanceBitmap days = attendanceMap.computeIfAbsent(studentId, k -> new AttendanceBitmap(today));
 
-		LocalDate today = LocalDate.now();
+			if (!days.tryMark(today, present)) {
+				throw new IllegalArgumentException("Attendance already marked for today for student: " + studentId);
+			}
 
-		boolean alreadyMarked = records.stream().anyMatch(a -> a.getDate().equals(today));
+			count(studentId, present);
 
-		if (alreadyMarked) {
-			throw new IllegalArgumentException("Attendance already marked for today for student: " + studentId);
+			rewriteAttendanceFile();
+		} finally {
+			markLock.readLock().unlock();
 		}
 
-		Attendance attendance = new Attendance(studentId, today, present);
+		// Log action
+		FileUtil.writeToFile(ATTENDANCE_LOG, logLine(studentId, today, present));
+	}
 
-		records.add(attendance);
+	@Override
+	public void markAttendanceForCourse(Integer courseId, LocalDate date, Map<Integer, Boolean> marks) {
 
-		rewriteAttendanceFile();
+		if (courseId == null || date == null || marks == null || marks.isEmpty()) {
+			throw new IllegalArgumentException("Invalid roll-call data");
+		}
 
-		// Log action
-		FileUtil.writeToFile("data/attendance-logs.txt",
-				"MARKED: Student " + studentId + " | Date: " + today + " | Present: " + present);
+		if (date.isAfter(LocalDate.now())) {
+			throw new IllegalArgumentException("Cannot mark attendance for a future date: " + date);
+		}
+
+		StudentService roster = studentService;
+		if (roster == null) {
+			throw new IllegalStateException("Student roster not available for course roll-call");
+		}
+
+		Set<Integer> enrolled = roster.getStudentsByCourse(courseId).stream().map(Student::getStudentId)
+				.collect(Collectors.toSet());
+
+		StringBuilder log = new StringBuilder();
+
+		// Nothing is applied until every mark is validated, and no other mark can land in between
+		markLock.writeLock().lock();
+		try {
+			for (Map.Entry<Integer, Boolean> mark : marks.entrySet()) {
+				validateStudentId(mark.getKey());
+
+				if (mark.getValue() == null) {
+					throw new IllegalArgumentException("Missing attendance mark for student: " + mark.getKey());
+				}
+				if (!enrolled.contains(mark.getKey())) {
+					throw new IllegalArgumentException(
+							"Student " + mark.getKey() + " is not enrolled in course " + courseId);
+				}
+
+				AttendanceBitmap days = attendanceMap.get(mark.getKey());
+				if (days != null && days.isMarked(date)) {
+					throw new IllegalArgumentException(
+							"Attendance already marked on " + date + " for student: " + mark.getKey());
+				}
+			}
+
+			// a snapshot sees either none or all of the roll-call
+			SnapshotCoordinator.atomically(() -> {
+				synchronized (countsByPercentage) {
+					for (Map.Entry<Integer, Boolean> mark : marks.entrySet()) {
+						Integer studentId = mark.getKey();
+						boolean present = mark.getValue();
+
+						attendanceMap.computeIfAbsent(studentId, k -> new AttendanceBitmap(date)).mark(date, present);
+						count(studentId, present);
+
+						if (log.length() > 0) {
+							log.append(System.lineSeparator());
+						}
+						log.append(logLine(studentId, date, present));
+					}
+				}
+			});
+
+			rewriteAttendanceFile();
+		} finally {
+			markLock.writeLock().unlock();
+		}
+
+		FileUtil.writeToFile(ATTENDANCE_LOG, log.toString());
+	}
+
+	private static String logLine(Integer studentId, LocalDate date, boolean present) {
+		return "MARKED: Student " + studentId + " | Date: " + date + " | Present: " + present;
 	}
 
 	@Override
@@ -123,35 +232,101 @@ public class AttendanceServiceImpl implements AttendanceService {
 
 		validateStudentId(studentId);
 
-		List<Attendance> records = attendanceMap.get(studentId);
+		AttendanceCount count;
+		markLock.readLock().lock();
+		try {
+			count = countByStudent.get(studentId);
+		} finally {
+			markLock.readLock().unlock();
+		}
 
-		if (records == null || records.isEmpty()) {
+		if (count == null) {
 			throw new NoRecordAttendanceException("No attendance record found for student ID: " + studentId);
 		}
 
-		long presentCount = records.stream().filter(Attendance::getPresent).count();
+		return count.percentage();
+	}
+
+	@Override
+	public Map<Integer, Double> getAttendancePercentages() {
 
-		return (presentCount * 100.0) / records.size();
+		Map<Integer, Double> percentages = new HashMap<>();
+		publishedPercentages.forEach(percentages::put);
+		return percentages;
 	}
 
 	@Override
-	public List<Integer> getStudentsBelowAttendance(double threshold) {
+	public PersistentIntMap<Double> getAttendanceSnapshot() {
+		return publishedPercentages;
+	}
+
+	@Override
+	public void addChangeListener(Consumer<ChangeEvent> listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeChangeListener(Consumer<ChangeEvent> listener) {
+		listeners.remove(listener);
+	}
 
-		return attendanceMap.entrySet().stream().filter(e -> {
-			long present = e.getValue().stream().filter(Attendance::getPresent).count();
+	@Override
+	public List<Integer> getStudentsBelowAttendance(double threshold) {
 
-			int total = e.getValue().size();
-			if (total == 0)
-				return false;
-			double percent = (present * 100.0) / total;
+		// probe sorts before every real entry with the same percentage, so the head set is strictly below
+		AttendanceCount probe = new AttendanceCount(Integer.MIN_VALUE, threshold);
 
-			return percent < threshold;
-		}).map(Map.Entry::getKey).toList();
+		markLock.readLock().lock();
+		try {
+			return countsByPercentage.headSet(probe, false).stream().map(AttendanceCount::studentId).toList();
+		} finally {
+			markLock.readLock().unlock();
+		}
 	}
 	
 	@Override
 	public boolean hasAttendance(Integer studentId) {
-	    return attendanceMap.containsKey(studentId);
+		markLock.readLock().lock();
+		try {
+			return attendanceMap.containsKey(studentId);
+		} finally {
+			markLock.readLock().unlock();
+		}
+	}
+
+	private static final class AttendanceCount {
+
+		private final Integer studentId;
+		private final int present;
+		private final int total;
+		private final double percentage;
+
+		AttendanceCount(Integer studentId, int present, int total) {
+			this.studentId = studentId;
+			this.present = present;
+			this.total = total;
+			this.percentage = (present * 100.0) / total;
+		}
+
+		// Lookup key for range queries on the percentage ordering
+		AttendanceCount(Integer studentId, double percentage) {
+			this.studentId = studentId;
+			this.present = 0;
+			this.total = 0;
+			this.percentage = percentage;
+		}
+
+		AttendanceCount plus(boolean presentToday) {
+			return new AttendanceCount(studentId, present + (presentToday ? 1 : 0), total + 1);
+		}
+
+		Integer studentId() {
+			return studentId;
+		}
+
+		double percentage() {
+			return percentage;
+		}
 	}
 
 }
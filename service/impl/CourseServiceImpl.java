@@ -6,12 +6,12 @@ import service.TeacherService;
 import util.ValidationUtil;
 import util.FileUtil;
 import util.IdGenerator;
+import util.IdGenerator.Sequence;
+import util.CsvBufferReader;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -22,62 +22,54 @@ public class CourseServiceImpl implements CourseService {
 
 	private final Map<Integer, Course> courseMap = new ConcurrentHashMap<>();
 
-	private static final String COURSE_FILE = "data/courses.csv";
+	static final String COURSE_FILE = "data/courses.csv";
 
 	private final TeacherService teacherService;
 
 	public CourseServiceImpl(TeacherService teacherService) {
-		this.teacherService = teacherService;
-		loadCoursesFromFile();
+		this(teacherService, loadCoursesFromFile());
 	}
 
-	private void loadCoursesFromFile() {
-
-		File file = new File(COURSE_FILE);
-
-		if (!file.exists() || file.length() == 0) {
-			return;
-		}
+	CourseServiceImpl(TeacherService teacherService, Map<Integer, Course> loadedCourses) {
+		this.teacherService = teacherService;
+		this.courseMap.putAll(loadedCourses);
+	}
 
-		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+	static Map<Integer, Course> loadCoursesFromFile() {
 
-			String line;
-			boolean isFirstLine = true;
+		Map<Integer, Course> courseMap = new HashMap<>();
 
-			while ((line = reader.readLine()) != null) {
+		try {
 
-				if (isFirstLine) {
-					isFirstLine = false;
-					continue; // skip header
-				}
+			// tracked while the rows are read, so the sequence check needs no second pass
+			int[] maxId = new int[1];
 
-				String[] parts = line.split(",");
+			CsvBufferReader.forEachRow(COURSE_FILE, true, row -> {
 
-				if (parts.length != 5)
-					continue;
+				if (row.columns() != 5)
+					return;
 
-				Integer id = Integer.parseInt(parts[0].trim());
-				String name = parts[1].trim();
-				Integer duration = Integer.parseInt(parts[2].trim());
-				BigDecimal fees = new BigDecimal(parts[3].trim());
-				Integer teacherId = Integer.parseInt(parts[4].trim());
+				Integer id = row.getInt(0);
+				String name = row.getString(1);
+				Integer duration = row.getInt(2);
+				BigDecimal fees = row.getDecimal(3);
+				Integer teacherId = row.getInt(4);
 
 				Course course = new Course(id, name, duration, fees, teacherId);
 
 				courseMap.put(id, course);
-			}
+				maxId[0] = Math.max(maxId[0], id);
+			});
 
 			if (!courseMap.isEmpty()) {
-
-				Integer maxId = courseMap.values().stream().map(Course::getCourseId).max(Integer::compareTo)
-						.orElse(1000);
-
-				IdGenerator.initialize(maxId);
+				IdGenerator.initialize(Sequence.COURSE, maxId[0]);
 			}
 
 		} catch (Exception e) {
 			throw new RuntimeException("Error loading courses file", e);
 		}
+
+		return courseMap;
 	}
 
 	private void rewriteCourseFile() {
@@ -89,11 +81,11 @@ public class CourseServiceImpl implements CourseService {
 		for (Course course : courseMap.values()) {
 
 			builder.append(course.getCourseId()).append(",").append(course.getCourseName()).append(",")
-					.append(course.getDuration()).append(",").append(course.getFees().toPlainString())
+					.append(course.getDuration()).append(",").append(course.getFees().toPlainString()).append(",")
 					.append(course.getTeacherId()).append(System.lineSeparator());
 		}
 
-		FileUtil.overwriteFile(COURSE_FILE, builder.toString());
+		FileUtil.writeSnapshot(COURSE_FILE, builder.toString());
 	}
 
 	private void validateCourse(Course course) {
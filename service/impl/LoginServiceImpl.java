@@ -5,13 +5,45 @@ import service.LoginService;
 import exception.InvalidLoginException;
 import util.*;
 
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 
 public class LoginServiceImpl implements LoginService {
 
     // Share same storage
     private static final Map<String, User> USERS = RegistrationServiceImpl.USERS;
 
+    /* Recently verified logins; -Dsmartinstitute.loginCache.size, -Dsmartinstitute.loginCache.seconds (0 disables) */
+    private static final int CACHE_SIZE = Integer.getInteger("smartinstitute.loginCache.size", 1024);
+    private static final long CACHE_TTL_NANOS = TimeUnit.SECONDS
+            .toNanos(Long.getLong("smartinstitute.loginCache.seconds", 900));
+
+    private static final String CACHE_MAC = "HmacSHA256";
+
+    static {
+        if (CACHE_SIZE < 0 || CACHE_TTL_NANOS < 0) {
+            throw new IllegalArgumentException("Invalid login cache configuration");
+        }
+    }
+
+    // Per-process key: the cached digests are useless outside this JVM and gone on restart
+    private final SecretKeySpec cacheKey = newCacheKey();
+
+    private final Map<String, VerifiedLogin> verified = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, VerifiedLogin> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
     @Override
     public User login(String username, String password) {
 
@@ -24,8 +56,7 @@ public class LoginServiceImpl implements LoginService {
 
         User user = USERS.get(username);
 
-        // ✅ Compare plain text passwords directly
-        if (user == null || !password.equals(user.getPassword())) {
+        if (user == null || !authenticate(user, password)) {
             FileUtil.writeToFile("data/login-logs.txt", "LOGIN FAILED: " + username);
             throw new InvalidLoginException("Invalid username or password");
         }
@@ -34,4 +65,84 @@ public class LoginServiceImpl implements LoginService {
 
         return user;
     }
-}
\ No newline at end of file
+
+    private boolean authenticate(User user, String password) {
+
+        String credential = user.getPassword();
+        byte[] digest = cacheDigest(password);
+
+        // A hit only confirms a password that was verified before; anything else, including a
+        // wrong password for a cached user, pays for the full hash
+        if (isVerified(user.getUsername(), credential, digest)) {
+            return true;
+        }
+
+        if (!PasswordHasher.verify(password, credential)) {
+            return false;
+        }
+
+        if (PasswordHasher.needsRehash(credential)) {
+            credential = PasswordHasher.hash(password);
+            user.setPassword(credential);
+            RegistrationServiceImpl.rewriteUsersFile();
+        }
+
+        remember(user.getUsername(), credential, digest);
+        return true;
+    }
+
+    private boolean isVerified(String username, String credential, byte[] digest) {
+
+        VerifiedLogin entry;
+        synchronized (verified) {
+            entry = verified.get(username);
+            if (entry != null && System.nanoTime() - entry.expiresAt >= 0) {
+                verified.remove(username);
+                entry = null;
+            }
+        }
+
+        // the credential check drops entries made before the stored hash was replaced
+        return entry != null && entry.credential.equals(credential) && MessageDigest.isEqual(entry.digest, digest);
+    }
+
+    private void remember(String username, String credential, byte[] digest) {
+
+        if (CACHE_SIZE == 0 || CACHE_TTL_NANOS == 0) {
+            return;
+        }
+
+        synchronized (verified) {
+            verified.put(username, new VerifiedLogin(credential, digest, System.nanoTime() + CACHE_TTL_NANOS));
+        }
+    }
+
+    private byte[] cacheDigest(String password) {
+        try {
+            Mac mac = Mac.getInstance(CACHE_MAC);
+            mac.init(cacheKey);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Login cache digest unavailable", e);
+        }
+    }
+
+    private static SecretKeySpec newCacheKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return new SecretKeySpec(key, CACHE_MAC);
+    }
+
+    private static final class VerifiedLogin {
+
+        private final String credential;
+        private final byte[] digest;
+        private final long expiresAt;
+
+        private VerifiedLogin(String credential, byte[] digest, long expiresAt) {
+            this.credential = credential;
+            this.digest = digest;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package service.impl;
+
+import model.ChangeEvent;
+import model.Student;
+import model.ReportType;
+import model.Teacher;
+import util.PersistentIntMap;
+import util.ReportFormatter;
+import util.ReportLayout;
+import util.ReportOutputs;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Formatted report rows, kept between runs and patched from the services'
+ * change events. A refresh re-formats only the rows of students and teachers
+ * that changed since the previous refresh, so its cost follows the number of
+ * changes rather than the size of the data. The first refresh formats all rows.
+ */
+final class MaterializedReports {
+
+	static final ReportLayout.Column GENERATED_AT = new ReportLayout.Column("generatedAt", "Generated At");
+	static final ReportLayout.Column THRESHOLD = new ReportLayout.Column("thresholdPercent", "Threshold", "%");
+
+	static final ReportLayout STUDENT_LAYOUT = ReportLayout.records(ReportType.STUDENT.name(), "STUDENT REPORT",
+			column("studentId", "ID"), column("name", "Name"), column("email", "Email"),
+			column("attendancePercent", "Attendance %"), column("feesPaid", "Fees Paid"));
+
+	static final ReportLayout TEACHER_LAYOUT = ReportLayout.records(ReportType.TEACHER.name(), "TEACHER REPORT",
+			column("teacherId", "ID"), column("name", "Name"), column("subject", "Subject"),
+			column("salary", "Salary"));
+
+	static final ReportLayout STUDENT_BY_COURSE_LAYOUT = ReportLayout
+			.pairs(ReportType.STUDENT_BY_COURSE.name(), "STUDENT BY COURSE REPORT", " : ",
+					column("courseId", "Course ID"), column("studentId", "Student ID"), column("name", "Name"))
+			.sectioned();
+
+	static final ReportLayout PENDING_FEES_LAYOUT = ReportLayout.lines(ReportType.PENDING_FEES.name(),
+			"PENDING FEES REPORT", "No students with pending fees.", column("studentId", "Student ID"),
+			column("pendingFees", "Pending Fees"));
+
+	static final ReportLayout LOW_ATTENDANCE_LAYOUT = ReportLayout.lines(ReportType.LOW_ATTENDANCE.name(),
+			"LOW ATTENDANCE REPORT", null, column("studentId", "Student ID"));
+
+	static final ReportLayout TEACHER_COURSE_MAPPING_LAYOUT = ReportLayout.pairs(
+			ReportType.TEACHER_COURSE_MAPPING.name(), "TEACHER COURSE MAPPING", " -> ", column("teacherId", "Teacher ID"),
+			column("subject", "Subject"));
+
+	private final ForkJoinPool formatPool;
+	private final int chunkSize;
+	// every kept row holds one rendering per formatter, in this order
+	private final List<ReportFormatter> formatters;
+
+	// Ids changed since the last refresh, filled on the threads that made the changes
+	private final Set<Integer> changedStudents = ConcurrentHashMap.newKeySet();
+	private final Set<Integer> changedTeachers = ConcurrentHashMap.newKeySet();
+	private final Set<Integer> changedAttendance = ConcurrentHashMap.newKeySet();
+	private final Set<Integer> changedPayments = ConcurrentHashMap.newKeySet();
+
+	// Guarded by this; null until the first refresh
+	private Rows current;
+
+	MaterializedReports(ForkJoinPool formatPool, int chunkSize, List<ReportFormatter> formatters) {
+		this.formatPool = formatPool;
+		this.chunkSize = chunkSize;
+		this.formatters = List.copyOf(formatters);
+	}
+
+	List<ReportFormatter> formatters() {
+		return formatters;
+	}
+
+	private static ReportLayout.Column column(String key, String label) {
+		return new ReportLayout.Column(key, label);
+	}
+
+	void onChange(ChangeEvent event) {
+		switch (event.getType()) {
+		case STUDENT -> changedStudents.add(event.getId());
+		case TEACHER -> changedTeachers.add(event.getId());
+		case ATTENDANCE -> changedAttendance.add(event.getId());
+		case PAYMENT -> changedPayments.add(event.getId());
+		}
+	}
+
+	/**
+	 * Brings the rows up to date with a snapshot taken by {@code capture} and
+	 * returns them. The result is immutable and stays valid after later refreshes.
+	 */
+	synchronized Rows refresh(Supplier<ReportSnapshot> capture) {
+
+		// Drained before the capture: a change landing in between is already in the
+		// snapshot and only stays marked for one more refresh
+		Set<Integer> students = drain(changedStudents);
+		Set<Integer> teachers = drain(changedTeachers);
+		Set<Integer> attendance = drain(changedAttendance);
+		Set<Integer> payments = drain(changedPayments);
+
+		ReportSnapshot snapshot = capture.get();
+
+		if (current == null) {
+			current = patch(Rows.EMPTY, snapshot, new LinkedHashSet<>(snapshot.studentIds()),
+					new LinkedHashSet<>(snapshot.teacherIds()), Set.of(),
+					new LinkedHashSet<>(snapshot.paymentStudentIds()));
+		} else {
+			current = patch(current, snapshot, students, teachers, attendance, payments);
+		}
+		return current;
+	}
+
+	private static Set<Integer> drain(Set<Integer> changed) {
+
+		Set<Integer> ids = new LinkedHashSet<>();
+		for (Iterator<Integer> it = changed.iterator(); it.hasNext();) {
+			ids.add(it.next());
+			it.remove();
+		}
+		return ids;
+	}
+
+	private Rows patch(Rows rows, ReportSnapshot snapshot, Set<Integer> students, Set<Integer> teachers,
+			Set<Integer> attendance, Set<Integer> payments) {
+
+		// a student's report row shows their attendance and fees as well
+		Set<Integer> studentRows = new LinkedHashSet<>(students);
+		studentRows.addAll(attendance);
+		studentRows.addAll(payments);
+
+		PersistentIntMap<String[]> studentReport = format(rows.students, STUDENT_LAYOUT,
+				new ArrayList<>(studentRows), id -> {
+					Student student = snapshot.student(id);
+					return student == null ? null : studentRow(student, snapshot);
+				});
+
+		PersistentIntMap<String[]> teacherReport = format(rows.teachers, TEACHER_LAYOUT, new ArrayList<>(teachers),
+				id -> {
+					Teacher teacher = snapshot.teacher(id);
+					return teacher == null ? null
+							: new Object[] { id, teacher.getName(), teacher.getSubject(), teacher.getSalary() };
+				});
+
+		PersistentIntMap<String[]> teacherCourses = format(rows.teacherCourses, TEACHER_COURSE_MAPPING_LAYOUT,
+				new ArrayList<>(teachers), id -> {
+					Teacher teacher = snapshot.teacher(id);
+					return teacher == null ? null : new Object[] { id, teacher.getSubject() };
+				});
+
+		PersistentIntMap<String[]> pendingFees = format(rows.pendingFees, PENDING_FEES_LAYOUT,
+				new ArrayList<>(payments), id -> {
+					BigDecimal pending = snapshot.pendingFee(id);
+					return pending == null ? null : new Object[] { id, pending };
+				});
+
+		// formatted in chunks of students like the other reports, whatever the size of each course
+		PersistentIntMap<String[]> courseRows = format(PersistentIntMap.empty(), STUDENT_BY_COURSE_LAYOUT,
+				new ArrayList<>(students), id -> {
+					Student student = snapshot.student(id);
+					return student == null ? null : new Object[] { student.getCourseId(), id, student.getName() };
+				});
+
+		// moves each changed student out of their old course section and into the current one
+		PersistentIntMap<PersistentIntMap<String[]>> courses = rows.courses;
+		PersistentIntMap<Integer> courseOfStudent = rows.courseOfStudent;
+
+		for (Integer id : students) {
+
+			Integer previousCourse = courseOfStudent.get(id);
+			if (previousCourse != null) {
+				PersistentIntMap<String[]> section = courses.get(previousCourse).minus(id);
+				courses = section.isEmpty() ? courses.minus(previousCourse) : courses.plus(previousCourse, section);
+				courseOfStudent = courseOfStudent.minus(id);
+			}
+
+			String[] row = courseRows.get(id);
+			if (row != null) {
+				Integer courseId = snapshot.student(id).getCourseId();
+				PersistentIntMap<String[]> section = courses.getOrDefault(courseId, PersistentIntMap.empty());
+				courses = courses.plus(courseId, section.plus(id, row));
+				courseOfStudent = courseOfStudent.plus(id, courseId);
+			}
+		}
+
+		return new Rows(snapshot, studentReport, teacherReport, courses, courseOfStudent, pendingFees,
+				teacherCourses);
+	}
+
+	/**
+	 * Re-formats the rows of the given ids in every format, in chunks on the
+	 * format pool when there are many; null values remove the id.
+	 */
+	private PersistentIntMap<String[]> format(PersistentIntMap<String[]> rows, ReportLayout layout,
+			List<Integer> ids, Function<Integer, Object[]> values) {
+
+		Function<Integer, String[]> formatter = id -> {
+			Object[] row = values.apply(id);
+			return row == null ? null : ReportOutputs.render(layout, formatters, row);
+		};
+
+		if (ids.size() <= chunkSize) {
+			for (Integer id : ids) {
+				rows = put(rows, id, formatter.apply(id));
+			}
+			return rows;
+		}
+
+		List<ForkJoinTask<String[][]>> chunks = new ArrayList<>();
+		for (int from = 0; from < ids.size(); from += chunkSize) {
+			List<Integer> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+			chunks.add(formatPool.submit(() -> chunk.stream().map(formatter).toArray(String[][]::new)));
+		}
+
+		int at = 0;
+		for (ForkJoinTask<String[][]> chunk : chunks) {
+			for (String[] row : chunk.join()) {
+				rows = put(rows, ids.get(at++), row);
+			}
+		}
+		return rows;
+	}
+
+	private static PersistentIntMap<String[]> put(PersistentIntMap<String[]> rows, Integer id, String[] row) {
+		return row == null ? rows.minus(id) : rows.plus(id, row);
+	}
+
+	private static Object[] studentRow(Student student, ReportSnapshot snapshot) {
+
+		// two decimals, rounded half up as the text report always showed them
+		BigDecimal attendance = BigDecimal.valueOf(snapshot.attendancePercentage(student.getStudentId()))
+				.setScale(2, RoundingMode.HALF_UP);
+
+		return new Object[] { student.getStudentId(), student.getName(), student.getEmail(), attendance,
+				snapshot.totalPaid(student.getStudentId()) };
+	}
+
+	/**
+	 * One consistent version of every report's rows, with the snapshot they
+	 * were built from. Each row holds its renderings in formatter order.
+	 */
+	static final class Rows {
+
+		private static final Rows EMPTY = new Rows(null, PersistentIntMap.empty(), PersistentIntMap.empty(),
+				PersistentIntMap.empty(), PersistentIntMap.empty(), PersistentIntMap.empty(), PersistentIntMap.empty());
+
+		private final ReportSnapshot snapshot;
+		private final PersistentIntMap<String[]> students;
+		private final PersistentIntMap<String[]> teachers;
+		private final PersistentIntMap<PersistentIntMap<String[]>> courses;
+		private final PersistentIntMap<Integer> courseOfStudent;
+		private final PersistentIntMap<String[]> pendingFees;
+		private final PersistentIntMap<String[]> teacherCourses;
+
+		private Rows(ReportSnapshot snapshot, PersistentIntMap<String[]> students, PersistentIntMap<String[]> teachers,
+				PersistentIntMap<PersistentIntMap<String[]>> courses, PersistentIntMap<Integer> courseOfStudent,
+				PersistentIntMap<String[]> pendingFees, PersistentIntMap<String[]> teacherCourses) {
+			this.snapshot = snapshot;
+			this.students = students;
+			this.teachers = teachers;
+			this.courses = courses;
+			this.courseOfStudent = courseOfStudent;
+			this.pendingFees = pendingFees;
+			this.teacherCourses = teacherCourses;
+		}
+
+		ReportSnapshot snapshot() {
+			return snapshot;
+		}
+
+		PersistentIntMap<String[]> students() {
+			return students;
+		}
+
+		PersistentIntMap<String[]> teachers() {
+			return teachers;
+		}
+
+		/** Student lines by course id, then by student id. */
+		PersistentIntMap<PersistentIntMap<String[]>> courses() {
+			return courses;
+		}
+
+		PersistentIntMap<String[]> pendingFees() {
+			return pendingFees;
+		}
+
+		PersistentIntMap<String[]> teacherCourses() {
+			return teacherCourses;
+		}
+	}
+}
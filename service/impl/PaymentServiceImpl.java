@@ -1,75 +1,273 @@
 package service.impl;
 
+import model.ChangeEvent;
+import model.Money;
 import model.Payment;
 import model.PaymentMode;
 import model.PaymentStatus;
+import model.PaymentSummary;
 import service.CourseService;
 import service.PaymentService;
+import util.ChangeListeners;
 import util.FileUtil;
 import util.IdGenerator;
+import util.IdGenerator.Sequence;
+import util.CsvBufferReader;
+import util.PersistentIntMap;
 import exception.PaymentNotFoundException;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
 
 public class PaymentServiceImpl implements PaymentService {
 
 	private final Map<Integer, Payment> paymentMap = new ConcurrentHashMap<>();
 	private final CourseService courseService;
-	private static final String PAYMENT_FILE = "data/payments.csv";
+	static final String PAYMENT_FILE = "data/payments.csv";
+	static final String PAYMENT_BINARY_FILE = "data/payments.bin";
+	private static final String PAYMENT_JOURNAL = "data/payments.journal";
+	// Names the format of the current snapshot; the file in the other format may be stale
+	private static final String PAYMENT_FORMAT_FILE = "data/payments.format";
+
+	/* Format of the snapshot this process writes; either one is read at startup. */
+	enum SnapshotFormat {
+		CSV, BINARY
+	}
+
+	static final SnapshotFormat SNAPSHOT_FORMAT = SnapshotFormat
+			.valueOf(System.getProperty("smartinstitute.paymentFormat", "BINARY").toUpperCase());
+
+	static final PaymentMode[] PAYMENT_MODES = PaymentMode.values();
+	static final PaymentStatus[] PAYMENT_STATUSES = PaymentStatus.values();
+
+	private final PaymentJournal journal = new PaymentJournal(PAYMENT_JOURNAL);
+	private SnapshotFormat currentFormat;
+
+	/* Secondary indexes, maintained under the service lock on every mutation. */
+	private final Map<Integer, Set<Integer>> paymentIdsByStudent = new ConcurrentHashMap<>();
+	private final Map<Long, Set<Integer>> pendingIdsByEnrollment = new ConcurrentHashMap<>();
+	private final Map<PaymentStatus, Set<Integer>> paymentIdsByStatus = new ConcurrentHashMap<>();
+
+	/* Running totals, patched with each payment's contribution as it is indexed/unindexed. */
+	private final Map<Integer, PaymentSummary> summaryByStudent = new ConcurrentHashMap<>();
+	private final Map<Integer, PaymentSummary> summaryByCourse = new ConcurrentHashMap<>();
+
+	// Published copy of summaryByStudent for snapshots, refreshed at the end of each mutation
+	private volatile PersistentIntMap<PaymentSummary> publishedSummaries = PersistentIntMap.empty();
+	private final ChangeListeners listeners = new ChangeListeners();
 
 	public PaymentServiceImpl(CourseService courseService) {
+		this(courseService, loadPaymentsFromFile());
+	}
+
+	PaymentServiceImpl(CourseService courseService, Map<Integer, Payment> loadedPayments) {
 		this.courseService = courseService;
-		loadPaymentsFromFile();
-	}
-
-	private void loadPaymentsFromFile() {
-		File file = new File(PAYMENT_FILE);
-		if (!file.exists() || file.length() == 0)
-			return;
-
-		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-			String line;
-			boolean isFirstLine = true;
-			while ((line = reader.readLine()) != null) {
-				if (isFirstLine) {
-					isFirstLine = false;
-					continue;
-				}
-				String[] parts = line.split(",");
-				if (parts.length != 7)
-					continue;
-
-				Integer paymentId = Integer.parseInt(parts[0].trim());
-				Integer studentId = Integer.parseInt(parts[1].trim());
-				Integer courseId = Integer.parseInt(parts[2].trim());
-				BigDecimal amount = new BigDecimal(parts[3].trim());
-				PaymentMode mode = PaymentMode.valueOf(parts[4].trim());
-				PaymentStatus status = PaymentStatus.valueOf(parts[5].trim());
-				LocalDateTime date = LocalDateTime.parse(parts[6].trim());
+		this.paymentMap.putAll(loadedPayments);
+		this.currentFormat = currentSnapshotFormat();
+		if (journal.hasEntries() || (!paymentMap.isEmpty() && currentFormat != SNAPSHOT_FORMAT)) {
+			// start every run from a fresh snapshot so new entries never follow a torn tail,
+			// and write the configured format right away when migrating from the other one
+			rewritePaymentFile();
+			journal.truncate();
+		}
+		paymentMap.values().forEach(this::index);
+		publishedSummaries = PersistentIntMap.of(summaryByStudent);
+	}
 
-				Payment payment = new Payment(paymentId, studentId, courseId, amount, mode, status, date);
-				paymentMap.put(paymentId, payment);
+	/** Snapshot plus the journal tail replayed on top of it. */
+	static Map<Integer, Payment> loadPaymentsFromFile() {
+		Map<Integer, Payment> paymentMap = new HashMap<>();
+
+		// nothing else writes the ledger before the service is built, so no version check is needed
+		int maxId = readLedger(currentSnapshotFormat(), paymentMap);
+
+		if (maxId > 0) {
+			IdGenerator.initialize(Sequence.PAYMENT, maxId);
+		}
+
+		return paymentMap;
+	}
+
+	/**
+	 * The ledger as stored: the snapshot decoded and the journal replayed in memory.
+	 * Writes nothing. A running application may compact or switch format while the
+	 * files are read, so the format, snapshot and journal are fingerprinted before
+	 * and after, and the read is repeated until nothing changed in between.
+	 */
+	public static Map<Integer, Payment> readStoredPayments() {
+
+		for (int attempt = 1;; attempt++) {
+
+			LedgerVersion before = LedgerVersion.current();
+			Map<Integer, Payment> paymentMap = new HashMap<>();
+			readLedger(before.format(), paymentMap);
+
+			if (before.unchangedIn(LedgerVersion.current())) {
+				return paymentMap;
+			}
+			if (attempt == MAX_LEDGER_READS) {
+				throw new IllegalStateException("Payment ledger kept changing while it was read");
+			}
+		}
+	}
+
+	private static final int MAX_LEDGER_READS = 10;
+
+	// Fills the map and returns the highest payment id read, including ids the journal deleted
+	private static int readLedger(SnapshotFormat format, Map<Integer, Payment> paymentMap) {
+
+		int maxId = format == SnapshotFormat.BINARY ? PaymentSnapshotCodec.read(PAYMENT_BINARY_FILE, paymentMap)
+				: loadCsvSnapshot(paymentMap);
+
+		PaymentJournal journal = new PaymentJournal(PAYMENT_JOURNAL);
+		journal.replay(paymentMap);
+
+		return Math.max(maxId, journal.highestReplayedId());
+	}
+
+	/**
+	 * What a ledger read depends on. Snapshots, the format marker and journal
+	 * truncation are all published by renaming a new file into place, so a new
+	 * file key (inode) marks a compaction; the journal otherwise only grows.
+	 */
+	private record LedgerVersion(SnapshotFormat format, Object snapshotKey, long snapshotSize, long snapshotCrc,
+			Object journalKey, long journalSize) {
+
+		static LedgerVersion current() {
+
+			SnapshotFormat format = currentSnapshotFormat();
+			Path snapshot = Paths.get(format == SnapshotFormat.BINARY ? PAYMENT_BINARY_FILE : PAYMENT_FILE);
+			BasicFileAttributes snapshotAttributes = attributes(snapshot);
+			BasicFileAttributes journalAttributes = attributes(Paths.get(PAYMENT_JOURNAL));
+
+			return new LedgerVersion(format, snapshotAttributes == null ? null : snapshotAttributes.fileKey(),
+					snapshotAttributes == null ? -1 : snapshotAttributes.size(), crc(snapshot),
+					journalAttributes == null ? null : journalAttributes.fileKey(),
+					journalAttributes == null ? 0 : journalAttributes.size());
+		}
+
+		// Appends after the first look are fine: the replay saw a prefix of them
+		boolean unchangedIn(LedgerVersion later) {
+			return format == later.format && Objects.equals(snapshotKey, later.snapshotKey)
+					&& snapshotSize == later.snapshotSize && snapshotCrc == later.snapshotCrc
+					&& Objects.equals(journalKey, later.journalKey) && journalSize <= later.journalSize;
+		}
+
+		private static BasicFileAttributes attributes(Path file) {
+			try {
+				return Files.readAttributes(file, BasicFileAttributes.class);
+			} catch (NoSuchFileException e) {
+				return null;
+			} catch (IOException e) {
+				throw new RuntimeException("Error reading file: " + file, e);
 			}
+		}
 
-			if (!paymentMap.isEmpty()) {
-				Integer maxId = paymentMap.values().stream().map(Payment::getPaymentId).max(Integer::compareTo)
-						.orElse(1000);
-				IdGenerator.initialize(maxId);
+		private static long crc(Path file) {
+			try {
+				CRC32 crc = new CRC32();
+				crc.update(Files.readAllBytes(file));
+				return crc.getValue();
+			} catch (NoSuchFileException e) {
+				return -1;
+			} catch (IOException e) {
+				throw new RuntimeException("Error reading file: " + file, e);
 			}
+		}
+	}
+
+	private static int loadCsvSnapshot(Map<Integer, Payment> paymentMap) {
+		int[] maxId = new int[1];
+
+		try {
+			CsvBufferReader.forEachRow(PAYMENT_FILE, true, row -> {
+				if (row.columns() != 7)
+					return;
+
+				Integer paymentId = row.getInt(0);
+				Integer studentId = row.getInt(1);
+				Integer courseId = row.getInt(2);
+				BigDecimal amount = roundToPaise(row.getDecimal(3), paymentId);
+				PaymentMode mode = row.getEnum(4, PAYMENT_MODES);
+				PaymentStatus status = row.getEnum(5, PAYMENT_STATUSES);
+				LocalDateTime date = row.getDateTime(6);
+
+				Payment payment = new Payment(paymentId, studentId, courseId, amount, mode, status, date);
+				paymentMap.put(paymentId, payment);
+				maxId[0] = Math.max(maxId[0], paymentId);
+			});
 
 		} catch (Exception e) {
 			throw new RuntimeException("Error loading payments file", e);
 		}
+		return maxId[0];
+	}
+
+	/**
+	 * Stored amounts are whole paise, but rows written before that rule may have
+	 * more decimals. They are rounded half up as they are loaded instead of
+	 * failing startup; only new input is rejected.
+	 */
+	static BigDecimal roundToPaise(BigDecimal amount, Integer paymentId) {
+		if (amount.scale() <= 2)
+			return amount;
+
+		BigDecimal rounded = amount.setScale(2, RoundingMode.HALF_UP);
+		if (rounded.compareTo(amount) != 0)
+			System.out.println("Rounded amount of payment " + paymentId + " from " + amount.toPlainString() + " to "
+					+ rounded.toPlainString());
+		return rounded;
+	}
+
+	/**
+	 * Format of the snapshot on disk, as recorded when it was written. Without a
+	 * record (written before there was one) only a single format was ever
+	 * written: binary if that file exists, otherwise the CSV.
+	 */
+	private static SnapshotFormat currentSnapshotFormat() {
+		if (new File(PAYMENT_FORMAT_FILE).exists()) {
+			String recorded = FileUtil.readFile(PAYMENT_FORMAT_FILE).strip();
+			try {
+				return SnapshotFormat.valueOf(recorded);
+			} catch (IllegalArgumentException e) {
+				throw new IllegalStateException("Unknown payment snapshot format in " + PAYMENT_FORMAT_FILE + ": "
+						+ recorded);
+			}
+		}
+		return new File(PAYMENT_BINARY_FILE).exists() ? SnapshotFormat.BINARY : SnapshotFormat.CSV;
 	}
 
+	// Durable: the journal is truncated right after, and must not outlive a snapshot that never reached disk
 	private void rewritePaymentFile() {
+		if (SNAPSHOT_FORMAT == SnapshotFormat.BINARY) {
+			FileUtil.overwriteFileDurably(PAYMENT_BINARY_FILE, PaymentSnapshotCodec.encode(paymentMap.values()));
+		} else {
+			writeCsvSnapshot();
+		}
+
+		// switched only once the new snapshot is on disk, and before the journal is truncated,
+		// so a crash in between still loads the old snapshot with the journal that completes it
+		if (currentFormat != SNAPSHOT_FORMAT) {
+			FileUtil.overwriteFileDurably(PAYMENT_FORMAT_FILE, SNAPSHOT_FORMAT.name());
+			currentFormat = SNAPSHOT_FORMAT;
+		}
+	}
+
+	private void writeCsvSnapshot() {
+
 		StringBuilder builder = new StringBuilder();
 		builder.append("paymentId,studentId,courseId,amount,paymentMode,status,paymentDate")
 				.append(System.lineSeparator());
@@ -81,7 +279,96 @@ public class PaymentServiceImpl implements PaymentService {
 					.append(System.lineSeparator());
 		}
 
-		FileUtil.overwriteFile(PAYMENT_FILE, builder.toString());
+		FileUtil.writeSnapshotDurably(PAYMENT_FILE, builder.toString());
+	}
+
+	// Caller must hold the service lock; publishes the student's totals once the whole change is applied
+	private void publishSummary(Integer studentId) {
+		PaymentSummary summary = summaryByStudent.get(studentId);
+		publishedSummaries = summary == null ? publishedSummaries.minus(studentId)
+				: publishedSummaries.plus(studentId, summary);
+		listeners.fire(ChangeEvent.Type.PAYMENT, studentId);
+	}
+
+	// Caller must hold the service lock so the snapshot matches the journal position.
+	private void compactIfNeeded() {
+		if (journal.needsCompaction()) {
+			rewritePaymentFile();
+			journal.truncate();
+		}
+	}
+
+	/* ---------------- INDEXES ---------------- */
+
+	private static Long enrollmentKey(Integer studentId, Integer courseId) {
+		return ((long) studentId << 32) | (courseId & 0xFFFFFFFFL);
+	}
+
+	private static <K> void addToIndex(Map<K, Set<Integer>> index, K key, Integer paymentId) {
+		index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(paymentId);
+	}
+
+	private static <K> void removeFromIndex(Map<K, Set<Integer>> index, K key, Integer paymentId) {
+		index.computeIfPresent(key, (k, ids) -> {
+			ids.remove(paymentId);
+			return ids.isEmpty() ? null : ids;
+		});
+	}
+
+	private static void addToSummary(Map<Integer, PaymentSummary> summaries, Integer key, PaymentSummary delta) {
+		summaries.merge(key, delta, PaymentSummary::plus);
+	}
+
+	private static void removeFromSummary(Map<Integer, PaymentSummary> summaries, Integer key,
+			PaymentSummary delta) {
+		summaries.computeIfPresent(key, (k, current) -> {
+			PaymentSummary updated = current.minus(delta);
+			return updated.getPaymentCount() == 0 ? null : updated;
+		});
+	}
+
+	private void index(Payment p) {
+		PaymentSummary contribution = PaymentSummary.of(p);
+		addToSummary(summaryByStudent, p.getStudentId(), contribution);
+		addToSummary(summaryByCourse, p.getCourseId(), contribution);
+
+		addToIndex(paymentIdsByStudent, p.getStudentId(), p.getPaymentId());
+		addToIndex(paymentIdsByStatus, p.getStatus(), p.getPaymentId());
+		if (p.getStatus() == PaymentStatus.PENDING) {
+			addToIndex(pendingIdsByEnrollment, enrollmentKey(p.getStudentId(), p.getCourseId()), p.getPaymentId());
+		}
+	}
+
+	private void unindex(Payment p) {
+		PaymentSummary contribution = PaymentSummary.of(p);
+		removeFromSummary(summaryByStudent, p.getStudentId(), contribution);
+		removeFromSummary(summaryByCourse, p.getCourseId(), contribution);
+
+		removeFromIndex(paymentIdsByStudent, p.getStudentId(), p.getPaymentId());
+		removeFromIndex(paymentIdsByStatus, p.getStatus(), p.getPaymentId());
+		if (p.getStatus() == PaymentStatus.PENDING) {
+			removeFromIndex(pendingIdsByEnrollment, enrollmentKey(p.getStudentId(), p.getCourseId()),
+					p.getPaymentId());
+		}
+	}
+
+	private void store(Payment payment) {
+		Payment previous = paymentMap.put(payment.getPaymentId(), payment);
+		if (previous != null)
+			unindex(previous);
+		index(payment);
+	}
+
+	private List<Payment> resolve(Set<Integer> paymentIds) {
+		if (paymentIds == null)
+			return List.of();
+		// readers are not locked, so an id may point at a payment deleted meanwhile
+		return paymentIds.stream().map(paymentMap::get).filter(Objects::nonNull).toList();
+	}
+
+	private Optional<Payment> findPending(Integer studentId, Integer courseId) {
+		Set<Integer> ids = pendingIdsByEnrollment.get(enrollmentKey(studentId, courseId));
+		return ids == null ? Optional.empty() : ids.stream().map(paymentMap::get).filter(Objects::nonNull).findFirst();
 	}
 
 	/* ---------------- CORE METHODS ---------------- */
@@ -90,53 +377,78 @@ public class PaymentServiceImpl implements PaymentService {
 	public void addPayment(Payment payment) {
 		validatePayment(payment);
 
-		Optional<Payment> pendingOpt = paymentMap.values().stream()
-				.filter(p -> p.getStudentId().equals(payment.getStudentId()))
-				.filter(p -> p.getCourseId().equals(payment.getCourseId()))
-				.filter(p -> p.getStatus() == PaymentStatus.PENDING).findFirst();
+		// acknowledged only once journaled; waiting outside the lock lets concurrent payments share the fsync
+		FileUtil.await(applyPayment(payment));
+	}
+
+	private synchronized CompletableFuture<Void> applyPayment(Payment payment) {
+		CompletableFuture<Void> journaled;
+
+		Optional<Payment> pendingOpt = findPending(payment.getStudentId(), payment.getCourseId());
 
 		LocalDateTime now = LocalDateTime.now();
 
 		if (pendingOpt.isPresent()) {
 			Payment pending = pendingOpt.get();
-			BigDecimal remaining = pending.getAmount().subtract(payment.getAmount());
+			Money remaining = pending.getMoney().minus(payment.getMoney());
 
-			if (remaining.compareTo(BigDecimal.ZERO) <= 0) {
+			PaymentJournal.Op pendingOp;
+
+			unindex(pending);
+
+			if (remaining.signum() <= 0) {
 				// ✅ Fully paid
 				pending.setAmount(BigDecimal.ZERO);
 				pending.setStatus(PaymentStatus.SUCCESS);
 				pending.setPaymentMode(payment.getPaymentMode());
 				pending.setPaymentDate(now);
+				pendingOp = PaymentJournal.Op.SETTLE;
 			} else {
 				// ✅ Partial payment
-				pending.setAmount(remaining); // Keep remaining as pending
+				pending.setAmount(remaining.toBigDecimal()); // Keep remaining as pending
 				pending.setPaymentDate(now); // Update timestamp
 				// Do NOT mark status SUCCESS yet
+				pendingOp = PaymentJournal.Op.PARTIAL;
 			}
 
+			index(pending);
+
 			// Record the actual payment as SUCCESS
-			Payment actualPayment = new Payment(IdGenerator.generateId(), payment.getStudentId(), payment.getCourseId(),
+			Payment actualPayment = new Payment(IdGenerator.generateId(Sequence.PAYMENT), payment.getStudentId(), payment.getCourseId(),
 					payment.getAmount(), payment.getPaymentMode(), PaymentStatus.SUCCESS, now);
-			paymentMap.put(actualPayment.getPaymentId(), actualPayment);
+			store(actualPayment);
+			journaled = journal.record(pendingOp, pending, PaymentJournal.Op.CREATE, actualPayment);
 
 		} else {
 			// No pending → treat as new payment
-			paymentMap.put(payment.getPaymentId(), payment);
+			store(payment);
+			journaled = journal.record(PaymentJournal.Op.CREATE, payment);
 		}
 
-		rewritePaymentFile();
+		publishSummary(payment.getStudentId());
+		compactIfNeeded();
+		return journaled;
 	}
 
 	@Override
 	public void createPendingPayment(Integer studentId, Integer courseId, BigDecimal courseFee) {
+		validateAmountScale(courseFee);
+
 		LocalDateTime now = LocalDateTime.now();
+		CompletableFuture<Void> journaled;
 
-		Payment pending = new Payment(IdGenerator.generateId(), studentId, courseId, courseFee, PaymentMode.CASH, // default
-																													// placeholder
-				PaymentStatus.PENDING, now);
-		paymentMap.put(pending.getPaymentId(), pending);
+		synchronized (this) {
+			Payment pending = new Payment(IdGenerator.generateId(Sequence.PAYMENT), studentId, courseId, courseFee, PaymentMode.CASH, // default
+																														// placeholder
+					PaymentStatus.PENDING, now);
+			store(pending);
 
-		rewritePaymentFile();
+			journaled = journal.record(PaymentJournal.Op.CREATE, pending);
+			publishSummary(studentId);
+			compactIfNeeded();
+		}
+
+		FileUtil.await(journaled);
 	}
 
 	@Override
@@ -152,7 +464,7 @@ public class PaymentServiceImpl implements PaymentService {
 	public List<Payment> getPaymentsByStudent(Integer studentId) {
 		if (studentId == null)
 			throw new IllegalArgumentException("StudentId cannot be null");
-		return paymentMap.values().stream().filter(p -> p.getStudentId().equals(studentId)).toList();
+		return resolve(paymentIdsByStudent.get(studentId));
 	}
 
 	@Override
@@ -163,35 +475,96 @@ public class PaymentServiceImpl implements PaymentService {
 	@Override
 	public void updatePaymentStatus(Integer paymentId, String status) {
 		validatePaymentId(paymentId);
-		Payment payment = paymentMap.get(paymentId);
-		if (payment == null)
-			throw new PaymentNotFoundException("Payment not found with id: " + paymentId);
+		CompletableFuture<Void> journaled;
+
+		synchronized (this) {
+			Payment payment = paymentMap.get(paymentId);
+			if (payment == null)
+				throw new PaymentNotFoundException("Payment not found with id: " + paymentId);
+
+			PaymentStatus newStatus = PaymentStatus.valueOf(status.toUpperCase());
+
+			unindex(payment);
+			payment.setStatus(newStatus);
+			payment.setPaymentDate(LocalDateTime.now());
+			index(payment);
+			journaled = journal.record(PaymentJournal.Op.STATUS, payment);
+			publishSummary(payment.getStudentId());
+			compactIfNeeded();
+		}
 
-		payment.setStatus(PaymentStatus.valueOf(status.toUpperCase()));
-		payment.setPaymentDate(LocalDateTime.now());
-		rewritePaymentFile();
+		FileUtil.await(journaled);
 	}
 
 	@Override
 	public void deletePayment(Integer paymentId) {
 		validatePaymentId(paymentId);
-		if (paymentMap.remove(paymentId) == null)
-			throw new PaymentNotFoundException("Payment not found with id: " + paymentId);
-		rewritePaymentFile();
+		CompletableFuture<Void> journaled;
+
+		synchronized (this) {
+			Payment removed = paymentMap.remove(paymentId);
+			if (removed == null)
+				throw new PaymentNotFoundException("Payment not found with id: " + paymentId);
+			unindex(removed);
+			journaled = journal.recordDelete(paymentId);
+			publishSummary(removed.getStudentId());
+			compactIfNeeded();
+		}
+
+		FileUtil.await(journaled);
 	}
 
 	@Override
 	public BigDecimal getTotalPaidByStudent(Integer studentId) {
-		return paymentMap.values().stream().filter(p -> p.getStudentId().equals(studentId))
-				.filter(p -> p.getStatus() == PaymentStatus.SUCCESS).map(Payment::getAmount)
-				.reduce(BigDecimal.ZERO, BigDecimal::add);
+		return getStudentPaymentSummary(studentId).getTotalPaid();
+	}
+
+	@Override
+	public PaymentSummary getStudentPaymentSummary(Integer studentId) {
+		if (studentId == null)
+			throw new IllegalArgumentException("StudentId cannot be null");
+		return summaryByStudent.getOrDefault(studentId, PaymentSummary.EMPTY);
+	}
+
+	@Override
+	public PaymentSummary getCoursePaymentSummary(Integer courseId) {
+		if (courseId == null)
+			throw new IllegalArgumentException("CourseId cannot be null");
+		return summaryByCourse.getOrDefault(courseId, PaymentSummary.EMPTY);
+	}
+
+	@Override
+	public Map<Integer, PaymentSummary> getStudentPaymentSummaries() {
+
+		Map<Integer, PaymentSummary> summaries = new HashMap<>();
+		publishedSummaries.forEach(summaries::put);
+		return summaries;
+	}
+
+	@Override
+	public PersistentIntMap<PaymentSummary> getPaymentSummarySnapshot() {
+		return publishedSummaries;
+	}
+
+	@Override
+	public void addChangeListener(Consumer<ChangeEvent> listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeChangeListener(Consumer<ChangeEvent> listener) {
+		listeners.remove(listener);
 	}
 
 	@Override
 	public Map<Integer, BigDecimal> getStudentsWithPendingFees() {
-		return paymentMap.values().stream().filter(p -> p.getStatus() == PaymentStatus.PENDING)
-				.collect(Collectors.groupingBy(Payment::getStudentId,
-						Collectors.mapping(Payment::getAmount, Collectors.reducing(BigDecimal.ZERO, BigDecimal::add))));
+		// pending totals are already kept per student; only the result is converted to BigDecimal
+		Map<Integer, BigDecimal> pendingFees = new HashMap<>();
+		summaryByStudent.forEach((studentId, summary) -> {
+			if (summary.getPending().signum() > 0)
+				pendingFees.put(studentId, summary.getTotalPending());
+		});
+		return pendingFees;
 	}
 
 	/* ---------------- VALIDATION ---------------- */
@@ -203,6 +576,13 @@ public class PaymentServiceImpl implements PaymentService {
 				|| payment.getStatus() == null || payment.getPaymentDate() == null) {
 			throw new IllegalArgumentException("Invalid payment data");
 		}
+		validateAmountScale(payment.getAmount());
+	}
+
+	// Snapshots store amounts as whole paise
+	private void validateAmountScale(BigDecimal amount) {
+		if (amount != null && amount.stripTrailingZeros().scale() > 2)
+			throw new IllegalArgumentException("Amount cannot have more than 2 decimal places: " + amount);
 	}
 
 	private void validatePaymentId(Integer paymentId) {
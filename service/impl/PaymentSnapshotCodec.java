@@ -0,0 +1,145 @@
+package service.impl;
+
+import model.Payment;
+import model.PaymentMode;
+import model.PaymentStatus;
+import util.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary payments snapshot: a header, one fixed-width record per payment and
+ * a CRC32 over everything before it.
+ *
+ * <pre>
+ * header : magic "SIPY" (int), version (short), record size (short), count (int)
+ * record : paymentId, studentId, courseId (int), amount in paise (long),
+ *          mode, status (byte ordinal), date as UTC epoch second (long) + nano (int)
+ * trailer: crc32 (int)
+ * </pre>
+ *
+ * Amounts must have at most two decimal places; they are stored exactly.
+ */
+public final class PaymentSnapshotCodec {
+
+	static final int MAGIC = 0x53495059;
+	static final short VERSION = 1;
+
+	private static final int HEADER_SIZE = 4 + 2 + 2 + 4;
+	private static final int RECORD_SIZE = 4 + 4 + 4 + 8 + 1 + 1 + 8 + 4;
+	private static final int TRAILER_SIZE = 4;
+
+	private static final PaymentMode[] MODES = PaymentMode.values();
+	private static final PaymentStatus[] STATUSES = PaymentStatus.values();
+
+	private PaymentSnapshotCodec() {
+	}
+
+	public static byte[] encode(Collection<Payment> payments) {
+
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + payments.size() * RECORD_SIZE + TRAILER_SIZE);
+
+		buffer.putInt(MAGIC).putShort(VERSION).putShort((short) RECORD_SIZE).putInt(payments.size());
+
+		for (Payment p : payments) {
+			LocalDateTime date = p.getPaymentDate();
+
+			buffer.putInt(p.getPaymentId()).putInt(p.getStudentId()).putInt(p.getCourseId())
+					.putLong(p.getMoney().getPaise()).put((byte) p.getPaymentMode().ordinal())
+					.put((byte) p.getStatus().ordinal()).putLong(date.toEpochSecond(ZoneOffset.UTC))
+					.putInt(date.getNano());
+		}
+
+		buffer.putInt((int) crc32(buffer, buffer.position()));
+		return buffer.array();
+	}
+
+	/**
+	 * Reads the snapshot into the map; a missing or empty file leaves it unchanged.
+	 *
+	 * @return the highest payment id read, or 0 if none
+	 */
+	static int read(String filePath, Map<Integer, Payment> paymentMap) {
+
+		FileUtil.flush();
+
+		File file = new File(filePath);
+		if (!file.exists() || file.length() == 0) {
+			return 0;
+		}
+
+		// read, not mapped: startup compaction renames a new snapshot over this file, which fails
+		// on Windows while a mapping of it is still alive
+		ByteBuffer buffer;
+		try {
+			buffer = ByteBuffer.wrap(Files.readAllBytes(Paths.get(filePath)));
+		} catch (IOException e) {
+			throw new RuntimeException("Error reading file: " + filePath, e);
+		}
+
+		return decode(buffer, filePath, paymentMap);
+	}
+
+	/** Decodes a snapshot into the map and returns the highest payment id in it, or 0 if it is empty. */
+	public static int decode(ByteBuffer buffer, String filePath, Map<Integer, Payment> paymentMap) {
+
+		if (buffer.limit() < HEADER_SIZE + TRAILER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IllegalStateException("Not a payment snapshot: " + filePath);
+		}
+		if (buffer.getShort(4) != VERSION || buffer.getShort(6) != RECORD_SIZE) {
+			throw new IllegalStateException("Unsupported payment snapshot version " + buffer.getShort(4)
+					+ " in file: " + filePath);
+		}
+
+		int count = buffer.getInt(8);
+		long expectedLength = HEADER_SIZE + (long) count * RECORD_SIZE + TRAILER_SIZE;
+		if (count < 0 || buffer.limit() != expectedLength) {
+			throw new IllegalStateException("Truncated payment snapshot: " + filePath);
+		}
+
+		int crcOffset = buffer.limit() - TRAILER_SIZE;
+		if ((int) crc32(buffer, crcOffset) != buffer.getInt(crcOffset)) {
+			throw new IllegalStateException("Checksum mismatch in file: " + filePath);
+		}
+
+		int maxId = 0;
+		for (int i = 0, at = HEADER_SIZE; i < count; i++, at += RECORD_SIZE) {
+
+			int paymentId = buffer.getInt(at);
+			int studentId = buffer.getInt(at + 4);
+			int courseId = buffer.getInt(at + 8);
+			BigDecimal amount = BigDecimal.valueOf(buffer.getLong(at + 12), 2);
+			PaymentMode mode = constant(MODES, buffer.get(at + 20), filePath);
+			PaymentStatus status = constant(STATUSES, buffer.get(at + 21), filePath);
+			LocalDateTime date = LocalDateTime.ofEpochSecond(buffer.getLong(at + 22), buffer.getInt(at + 30),
+					ZoneOffset.UTC);
+
+			paymentMap.put(paymentId, new Payment(paymentId, studentId, courseId, amount, mode, status, date));
+			maxId = Math.max(maxId, paymentId);
+		}
+		return maxId;
+	}
+
+	private static <E> E constant(E[] constants, byte ordinal, String filePath) {
+		if (ordinal < 0 || ordinal >= constants.length) {
+			throw new IllegalStateException("Invalid enum ordinal " + ordinal + " in file: " + filePath);
+		}
+		return constants[ordinal];
+	}
+
+	private static long crc32(ByteBuffer buffer, int length) {
+		CRC32 crc = new CRC32();
+		crc.update(buffer.duplicate().position(0).limit(length));
+		return crc.getValue();
+	}
+}
@@ -4,8 +4,9 @@ import model.Role;
 import model.User;
 import service.RegistrationService;
 import util.*;
+import util.IdGenerator.Sequence;
 
-import java.io.File;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -13,7 +14,7 @@ import exception.AdminAlreadyExistsException;
 
 public class RegistrationServiceImpl implements RegistrationService {
 
-	private static final String USERS_FILE = "data/users.csv";
+	static final String USERS_FILE = "data/users.csv";
 
 	static final Map<String, User> USERS = new ConcurrentHashMap<>();
 
@@ -21,53 +22,45 @@ public class RegistrationServiceImpl implements RegistrationService {
 		loadUsersFromFile();
 	}
 
+	// Guarded by the class lock; set once the first instance has hashed any plain-text passwords
+	private static boolean migrated;
+
+	public RegistrationServiceImpl() {
+		migrateOnce();
+	}
+
 	// ================= LOAD =================
 
 	private static void loadUsersFromFile() {
 		try {
-			File file = new File(USERS_FILE);
-			if (!file.exists())
-				return;
-
-			String content = FileUtil.readFile(USERS_FILE);
-			if (content.isBlank())
-				return;
+			// tracked while the rows are read, so the sequence check needs no second pass
+			int[] maxId = new int[1];
 
-			String[] lines = content.split("\\R");
-			boolean isFirstLine = true;
-
-			for (String line : lines) {
-
-				if (isFirstLine) { // skip CSV header
-					isFirstLine = false;
-					continue;
-				}
+			CsvBufferReader.forEachRow(USERS_FILE, true, row -> {
 
-				String[] parts = line.split(",");
-				if (parts.length != 4)
-					continue;
+				if (row.columns() != 4)
+					return;
 
-				Integer id = Integer.parseInt(parts[0].trim());
-				String username = parts[1].trim();
-				String password = parts[2].strip();
+				Integer id = row.getInt(0);
+				String username = row.getString(1);
+				String password = row.getString(2).strip();
 				Role role;
 
 				try {
-					role = Role.valueOf(parts[3].toUpperCase());
+					role = row.getEnum(3, Role.values());
 				} catch (IllegalArgumentException e) {
-					System.out.println("Invalid role in CSV: " + parts[3]);
-					continue;
+					System.out.println("Invalid role in CSV: " + row.getString(3));
+					return;
 				}
 
 				User user = new User(id, username, password, role);
 
 				USERS.put(username, user);
-			}
+				maxId[0] = Math.max(maxId[0], id);
+			});
 
 			if (!USERS.isEmpty()) {
-				Integer maxId = USERS.values().stream().map(User::getUserId).max(Integer::compareTo).orElse(1000);
-
-				IdGenerator.initialize(maxId);
+				IdGenerator.initialize(Sequence.USER, maxId[0]);
 			}
 
 		} catch (Exception e) {
@@ -75,9 +68,43 @@ public class RegistrationServiceImpl implements RegistrationService {
 		}
 	}
 
+	// Not in the class initializer: the hashing runs on pool threads, which would block on this class's
+	// initialization, and at startup it runs on a bootstrap loader thread alongside the other files
+	private static synchronized void migrateOnce() {
+
+		if (migrated) {
+			return;
+		}
+		migrated = true;
+
+		try {
+			migratePlainTextPasswords();
+		} catch (Exception e) {
+			System.out.println("Error migrating passwords: " + e.getMessage());
+		}
+	}
+
+	// Hashes rows written before passwords were hashed, and rewrites the file once so no plain text stays on disk
+	private static void migratePlainTextPasswords() {
+
+		List<User> plainText = USERS.values().stream().filter(u -> !PasswordHasher.isHashed(u.getPassword()))
+				.toList();
+
+		if (plainText.isEmpty()) {
+			return;
+		}
+
+		plainText.parallelStream().forEach(user -> user.setPassword(PasswordHasher.hash(user.getPassword())));
+
+		rewriteUsersFile();
+
+		System.out.println("Migrated " + plainText.size() + " plain-text password(s) to hashes");
+	}
+
 	// ================= REWRITE =================
 
-	private static void rewriteUsersFile() {
+	// Durable: the file holds the credentials, and a migration must not leave the plain-text copy behind
+	static void rewriteUsersFile() {
 
 		StringBuilder sb = new StringBuilder();
 
@@ -90,7 +117,7 @@ public class RegistrationServiceImpl implements RegistrationService {
 					.append(",").append(user.getRole()).append(System.lineSeparator());
 		}
 
-		FileUtil.overwriteFile(USERS_FILE, sb.toString());
+		FileUtil.writeSnapshotDurably(USERS_FILE, sb.toString());
 	}
 
 	// ================= REGISTER =================
@@ -125,7 +152,9 @@ public class RegistrationServiceImpl implements RegistrationService {
 			}
 		}
 
-		User user = new User(IdGenerator.generateId(), username, password, role);
+		// stripped like the password given at login
+		User user = new User(IdGenerator.generateId(Sequence.USER), username, PasswordHasher.hash(password.strip()),
+				role);
 
 		USERS.put(username, user);
 
@@ -1,18 +1,28 @@
 package service.impl;
 
-import model.Student;
-import model.Teacher;
-import model.Payment;
-import model.PaymentStatus;
+import model.ChangeEvent;
+import model.ReportMetrics;
+import model.ReportResult;
+import model.ReportType;
 import service.*;
-import util.FileUtil;
-
-import java.math.BigDecimal;
+import service.impl.MaterializedReports.Rows;
+import util.ReportArchive;
+import util.ReportFormatter;
+import util.ReportFormatters;
+import util.ReportLayout;
+import util.ReportOutputs;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 public class ReportServiceImpl implements ReportService {
 
@@ -21,12 +31,57 @@ public class ReportServiceImpl implements ReportService {
 	private final AttendanceService attendanceService;
 	private final PaymentService paymentService;
 
-	private final ExecutorService executor = new ThreadPoolExecutor(2, 4, 60L, TimeUnit.SECONDS,
-			new LinkedBlockingQueue<>());
+	/* Requests beyond this many waiting are refused rather than queued; -Dsmartinstitute.reportQueueCapacity */
+	private static final int QUEUE_CAPACITY = Integer.getInteger("smartinstitute.reportQueueCapacity", 32);
+
+	// Core size equals max size, so requests wait in the queue for one of the fixed workers
+	private final ThreadPoolExecutor executor = new ThreadPoolExecutor(REPORT_THREADS, REPORT_THREADS, 60L,
+			TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), new ReportThreadFactory("report-"),
+			this::reject);
+
+	// Only fires the ticks; each tick queues a request for the workers, so a slow report never delays the others
+	private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+			new ReportThreadFactory("report-scheduler-"));
+	private final Map<ReportType, Schedule> schedules = new ConcurrentHashMap<>();
+
+	// Runs still waiting for a worker, by report and threshold; a new request for one of them joins it
+	private final Map<String, CompletableFuture<ReportResult>> queued = new ConcurrentHashMap<>();
+
+	private final Map<ReportType, RunStats> stats = new EnumMap<>(ReportType.class);
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder coalesced = new LongAdder();
+
+	/* Re-formatting many rows runs in chunks on this pool; -Dsmartinstitute.reportParallelism */
+	private static final int REPORT_PARALLELISM = Integer.getInteger("smartinstitute.reportParallelism",
+			Runtime.getRuntime().availableProcessors());
+	private static final int CHUNK_SIZE = 1024;
+
+	private final ForkJoinPool formatPool = new ForkJoinPool(Math.max(1, REPORT_PARALLELISM));
+
+	// Report rows kept between runs, patched from the services' change events
+	private final MaterializedReports reports = new MaterializedReports(formatPool, CHUNK_SIZE, REPORT_FORMATS);
+	private final Consumer<ChangeEvent> changeListener = reports::onChange;
 
 	private static final String REPORT_FOLDER = "reports/";
 
-	private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+	/*
+	 * Reports are kept as a rotating archive in REPORT_FOLDER. Limits: -Dsmartinstitute.reportArchive.maxFiles
+	 * (per report and format), .maxMegabytes (all files) and .maxAgeDays.
+	 */
+	private static final int ARCHIVE_MAX_FILES = Integer.getInteger("smartinstitute.reportArchive.maxFiles", 30);
+	private static final long ARCHIVE_MAX_BYTES = Long.getLong("smartinstitute.reportArchive.maxMegabytes", 512L)
+			* 1024 * 1024;
+	private static final Duration ARCHIVE_MAX_AGE = Duration
+			.ofDays(Long.getLong("smartinstitute.reportArchive.maxAgeDays", 30L));
+
+	private final ReportArchive archive;
+
+	private static final int REPORT_THREADS = 4;
+	private static final double DEFAULT_ATTENDANCE_THRESHOLD = 75;
+
+	/* Every report is written once per format, e.g. -Dsmartinstitute.reportFormats=text,csv */
+	private static final List<ReportFormatter> REPORT_FORMATS = ReportFormatters
+			.parse(System.getProperty("smartinstitute.reportFormats", "text,csv,json"));
 
 	public ReportServiceImpl(StudentService studentService, TeacherService teacherService,
 			AttendanceService attendanceService, PaymentService paymentService) {
@@ -36,187 +91,388 @@ public class ReportServiceImpl implements ReportService {
 		this.attendanceService = attendanceService;
 		this.paymentService = paymentService;
 
-		new java.io.File(REPORT_FOLDER).mkdirs();
-	}
+		// read first, so a bad setting fails before anything is started or subscribed
+		Map<ReportType, Duration> configured = configuredSchedules();
+		archive = new ReportArchive(REPORT_FOLDER, ARCHIVE_MAX_FILES, ARCHIVE_MAX_BYTES, ARCHIVE_MAX_AGE);
+
+		executor.allowCoreThreadTimeOut(true);
+		scheduler.setRemoveOnCancelPolicy(true);
+
+		// filled once here, so later reads and updates need no map-level locking
+		for (ReportType type : ReportType.values()) {
+			stats.put(type, new RunStats());
+		}
 
-	private void writeReport(String path, String content) {
-		FileUtil.overwriteFile(path, content);
+		studentService.addChangeListener(changeListener);
+		teacherService.addChangeListener(changeListener);
+		attendanceService.addChangeListener(changeListener);
+		paymentService.addChangeListener(changeListener);
+
+		configured.forEach(this::scheduleReport);
 	}
 
-	private void runAsync(Runnable task) {
+	/*
+	 * -Dsmartinstitute.reportSchedule=STUDENT=15m,PENDING_FEES=1h runs those reports at those intervals;
+	 * units are s, m, h and d.
+	 */
+	private static Map<ReportType, Duration> configuredSchedules() {
 
-		if (executor.isShutdown()) {
-			throw new IllegalStateException("ReportService already shutdown");
+		Map<ReportType, Duration> configured = new EnumMap<>(ReportType.class);
+		String property = System.getProperty("smartinstitute.reportSchedule", "").trim();
+
+		if (property.isEmpty()) {
+			return configured;
 		}
 
-		executor.submit(() -> {
-			try {
-				task.run();
-			} catch (Exception e) {
-				System.err.println("Report generation failed: " + e.getMessage());
+		for (String entry : property.split(",")) {
+			String[] parts = entry.split("=");
+			if (parts.length != 2) {
+				throw new IllegalArgumentException("Invalid report schedule: " + entry);
 			}
-		});
+			configured.put(ReportType.valueOf(parts[0].trim().toUpperCase()), parseInterval(parts[1].trim()));
+		}
+		return configured;
 	}
 
-	// ================= EXISTING REPORTS =================
+	private static Duration parseInterval(String text) {
 
-	@Override
-	public void generateStudentReportAsync() {
+		if (text.length() < 2) {
+			throw new IllegalArgumentException("Invalid report interval: " + text);
+		}
 
-		runAsync(() -> {
+		long amount;
+		try {
+			amount = Long.parseLong(text.substring(0, text.length() - 1));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid report interval: " + text);
+		}
 
-			StringBuilder report = new StringBuilder(2048);
+		ChronoUnit unit = switch (Character.toLowerCase(text.charAt(text.length() - 1))) {
+		case 's' -> ChronoUnit.SECONDS;
+		case 'm' -> ChronoUnit.MINUTES;
+		case 'h' -> ChronoUnit.HOURS;
+		case 'd' -> ChronoUnit.DAYS;
+		default -> throw new IllegalArgumentException("Invalid report interval: " + text);
+		};
+		return Duration.of(amount, unit);
+	}
 
-			report.append("===== STUDENT REPORT =====\n").append("Generated At: ")
-					.append(LocalDateTime.now().format(FORMATTER)).append("\n\n");
+	private void ensureRunning() {
+		if (executor.isShutdown()) {
+			throw new IllegalStateException("ReportService already shutdown");
+		}
+	}
 
-			for (Student student : studentService.getAllStudents()) {
+	private void reject(Runnable task, ThreadPoolExecutor pool) {
 
-				double attendance;
+		if (pool.isShutdown()) {
+			throw new RejectedExecutionException("ReportService already shutdown");
+		}
+		rejected.increment();
+		throw new RejectedExecutionException("Report queue is full (" + QUEUE_CAPACITY + " waiting), try again later");
+	}
 
-				try {
-					attendance = attendanceService.calculateAttendancePercentage(student.getStudentId());
-				} catch (Exception e) {
-					attendance = 0.0; // No attendance yet
-				}
+	/**
+	 * Queues one run of the report, or returns the run of the same report that
+	 * is still waiting for a worker. Throws IllegalStateException when the
+	 * queue is full.
+	 */
+	private CompletableFuture<ReportResult> request(ReportType type, String key, Consumer<Rows> writer) {
 
-				BigDecimal totalPaid = paymentService.getPaymentsByStudent(student.getStudentId()).stream()
-						.filter(p -> p.getStatus() == PaymentStatus.SUCCESS).map(Payment::getAmount)
-						.reduce(BigDecimal.ZERO, BigDecimal::add);
+		ensureRunning();
 
-				report.append("--------------------------------\n").append("ID           : ")
-						.append(student.getStudentId()).append("\n").append("Name         : ").append(student.getName())
-						.append("\n").append("Email        : ").append(student.getEmail()).append("\n")
-						.append("Attendance % : ").append(String.format("%.2f", attendance)).append("\n")
-						.append("Fees Paid    : ").append(totalPaid).append("\n");
-			}
+		CompletableFuture<ReportResult> run = new CompletableFuture<>();
+		CompletableFuture<ReportResult> waiting = queued.putIfAbsent(key, run);
 
-			writeReport(REPORT_FOLDER + "student-report.txt", report.toString());
-		});
+		if (waiting != null) {
+			coalesced.increment();
+			return waiting;
+		}
+
+		try {
+			executor.execute(() -> {
+				// from here on a new request starts another run, which will see any later changes
+				queued.remove(key, run);
+				run.complete(timed(type, () -> writer.accept(refresh())));
+			});
+		} catch (RejectedExecutionException e) {
+			queued.remove(key, run);
+			throw new IllegalStateException(e.getMessage());
+		}
+		return run;
 	}
 
-	@Override
-	public void generateTeacherReportAsync() {
+	private CompletableFuture<ReportResult> request(ReportType type) {
+		return switch (type) {
+		case STUDENT -> request(type, type.name(), this::writeStudentReport);
+		case TEACHER -> request(type, type.name(), this::writeTeacherReport);
+		case STUDENT_BY_COURSE -> request(type, type.name(), this::writeStudentByCourseReport);
+		case PENDING_FEES -> request(type, type.name(), this::writePendingFeesReport);
+		case LOW_ATTENDANCE -> requestLowAttendance(DEFAULT_ATTENDANCE_THRESHOLD);
+		case TEACHER_COURSE_MAPPING -> request(type, type.name(), this::writeTeacherCourseMappingReport);
+		};
+	}
 
-		runAsync(() -> {
+	private CompletableFuture<ReportResult> requestLowAttendance(double threshold) {
+		return request(ReportType.LOW_ATTENDANCE, ReportType.LOW_ATTENDANCE.name() + "@" + threshold,
+				rows -> writeLowAttendanceReport(threshold, rows));
+	}
 
-			StringBuilder report = new StringBuilder(2048);
+	// Times the report and records the outcome; never throws
+	private ReportResult timed(ReportType type, Runnable writer) {
 
-			report.append("===== TEACHER REPORT =====\n").append("Generated At: ")
-					.append(LocalDateTime.now().format(FORMATTER)).append("\n\n");
+		long start = System.nanoTime();
+		ReportResult result;
 
-			for (Teacher teacher : teacherService.getAllTeachers()) {
+		try {
+			writer.run();
+			result = ReportResult.success(type, elapsedMillis(start));
+		} catch (RuntimeException e) {
+			System.err.println(type + " report failed: " + e.getMessage());
+			result = ReportResult.failed(type, elapsedMillis(start), e.getMessage());
+		}
 
-				report.append("--------------------------------\n").append("ID      : ").append(teacher.getTeacherId())
-						.append("\n").append("Name    : ").append(teacher.getName()).append("\n").append("Subject : ")
-						.append(teacher.getSubject()).append("\n").append("Salary  : ").append(teacher.getSalary())
-						.append("\n");
-			}
+		stats.get(type).record(result);
+		return result;
+	}
 
-			writeReport(REPORT_FOLDER + "teacher-report.txt", report.toString());
-		});
+	private ReportSnapshot snapshot() {
+		return ReportSnapshot.capture(studentService, teacherService, attendanceService, paymentService);
+	}
+
+	// Patches the kept rows with the changes since the last run; cheap when little changed
+	private Rows refresh() {
+		return reports.refresh(this::snapshot);
+	}
+
+	// ================= EXISTING REPORTS =================
+
+	@Override
+	public void generateStudentReportAsync() {
+		request(ReportType.STUDENT);
+	}
+
+	@Override
+	public void generateTeacherReportAsync() {
+		request(ReportType.TEACHER);
 	}
 
 	// ================= NEW REPORTS =================
 
 	@Override
 	public void generateStudentByCourseReportAsync() {
+		request(ReportType.STUDENT_BY_COURSE);
+	}
+
+	@Override
+	public void generatePendingFeesReportAsync() {
+		request(ReportType.PENDING_FEES);
+	}
 
-		runAsync(() -> {
+	@Override
+	public void generateLowAttendanceReportAsync(double threshold) {
+		requestLowAttendance(threshold);
+	}
 
-			StringBuilder report = new StringBuilder(2048);
+	@Override
+	public void generateTeacherCourseMappingReportAsync() {
+		request(ReportType.TEACHER_COURSE_MAPPING);
+	}
 
-			report.append("===== STUDENT BY COURSE REPORT =====\n").append("Generated At: ")
-					.append(LocalDateTime.now().format(FORMATTER)).append("\n\n");
+	// ================= ALL =================
 
-			Map<Integer, List<Student>> grouped = studentService.getStudentsGroupedByCourse();
+	/**
+	 * Refreshes the kept rows once, from one snapshot of all services, then
+	 * writes every report from that same version in parallel. All reports in
+	 * the batch describe the same instant, even while the services keep changing.
+	 * The batch does not join single report requests that are already queued.
+	 */
+	@Override
+	public CompletableFuture<Map<ReportType, ReportResult>> generateAllReportsAsync() {
 
-			grouped.forEach((courseId, students) -> {
-				report.append("Course ID: ").append(courseId).append("\n");
-				students.forEach(s -> report.append("  - ").append(s.getStudentId()).append(" : ").append(s.getName())
-						.append("\n"));
-				report.append("\n");
+		ensureRunning();
+
+		CompletableFuture<Rows> rows;
+		try {
+			rows = CompletableFuture.supplyAsync(this::refresh, executor);
+		} catch (RejectedExecutionException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+
+		List<CompletableFuture<ReportResult>> reports = List.of(
+				schedule(ReportType.STUDENT, rows, () -> writeStudentReport(rows.join())),
+				schedule(ReportType.TEACHER, rows, () -> writeTeacherReport(rows.join())),
+				schedule(ReportType.STUDENT_BY_COURSE, rows, () -> writeStudentByCourseReport(rows.join())),
+				schedule(ReportType.PENDING_FEES, rows, () -> writePendingFeesReport(rows.join())),
+				schedule(ReportType.LOW_ATTENDANCE, rows,
+						() -> writeLowAttendanceReport(DEFAULT_ATTENDANCE_THRESHOLD, rows.join())),
+				schedule(ReportType.TEACHER_COURSE_MAPPING, rows, () -> writeTeacherCourseMappingReport(rows.join())));
+
+		return CompletableFuture.allOf(reports.toArray(CompletableFuture[]::new)).thenApply(done -> {
+			Map<ReportType, ReportResult> results = new EnumMap<>(ReportType.class);
+			reports.forEach(report -> {
+				ReportResult result = report.join();
+				results.put(result.getType(), result);
 			});
+			return results;
+		});
+	}
+
+	// Runs the writer once its inputs are ready; never completes exceptionally
+	private CompletableFuture<ReportResult> schedule(ReportType type, CompletableFuture<?> inputs, Runnable writer) {
 
-			writeReport(REPORT_FOLDER + "student-by-course-report.txt", report.toString());
+		return inputs.thenApplyAsync(ready -> timed(type, writer), executor).exceptionally(e -> {
+			// the inputs failed, or the queue was full; either way the report never ran, so it has no run time
+			Throwable cause = e.getCause() != null ? e.getCause() : e;
+			ReportResult result = ReportResult.failed(type, 0, "Report not run: " + cause.getMessage());
+			if (!(cause instanceof RejectedExecutionException)) {
+				// a rejection is already counted by the queue
+				stats.get(type).recordNotRun(result.getError());
+			}
+			return result;
 		});
 	}
 
+	// ================= SCHEDULES =================
+
 	@Override
-	public void generatePendingFeesReportAsync() {
+	public void scheduleReport(ReportType type, Duration interval) {
 
-		runAsync(() -> {
+		ensureRunning();
 
-			StringBuilder report = new StringBuilder(2048);
+		if (type == null || interval == null || interval.isZero() || interval.isNegative()) {
+			throw new IllegalArgumentException("Invalid report schedule");
+		}
 
-			report.append("===== PENDING FEES REPORT =====\n").append("Generated At: ")
-					.append(LocalDateTime.now().format(FORMATTER)).append("\n\n");
+		long millis = interval.toMillis();
+		Schedule schedule = new Schedule(interval,
+				scheduler.scheduleAtFixedRate(() -> scheduledRun(type), millis, millis, TimeUnit.MILLISECONDS));
 
-			Map<Integer, BigDecimal> pendingFees = paymentService.getStudentsWithPendingFees();
+		Schedule previous = schedules.put(type, schedule);
+		if (previous != null) {
+			previous.task.cancel(false);
+		}
+	}
 
-			if (pendingFees.isEmpty()) {
-				report.append("No students with pending fees.\n");
-			} else {
-				pendingFees.forEach((studentId, amount) -> report.append("Student ID: ").append(studentId)
-						.append(" | Pending Fees: ").append(amount).append("\n"));
-			}
+	@Override
+	public void cancelScheduledReport(ReportType type) {
 
-			writeReport(REPORT_FOLDER + "pending-fees-report.txt", report.toString());
-		});
+		Schedule schedule = schedules.remove(type);
+		if (schedule != null) {
+			schedule.task.cancel(false);
+		}
+	}
+
+	// Must not throw: the scheduler would silently drop every later run
+	private void scheduledRun(ReportType type) {
+		try {
+			request(type);
+		} catch (RuntimeException e) {
+			System.err.println("Scheduled " + type + " report skipped: " + e.getMessage());
+		}
 	}
 
 	@Override
-	public void generateLowAttendanceReportAsync(double threshold) {
+	public ReportMetrics getMetrics() {
 
-		runAsync(() -> {
+		Map<ReportType, ReportMetrics.ReportStats> byType = new EnumMap<>(ReportType.class);
+		stats.forEach((type, stat) -> byType.put(type, stat.snapshot()));
 
-			StringBuilder report = new StringBuilder(2048);
+		Map<ReportType, Duration> scheduled = new EnumMap<>(ReportType.class);
+		schedules.forEach((type, schedule) -> scheduled.put(type, schedule.interval));
 
-			report.append("===== LOW ATTENDANCE REPORT =====\n").append("Threshold: ").append(threshold).append("%\n")
-					.append("Generated At: ").append(LocalDateTime.now().format(FORMATTER)).append("\n\n");
+		return new ReportMetrics(executor.getQueue().size(), QUEUE_CAPACITY, executor.getActiveCount(),
+				rejected.sum(), coalesced.sum(), byType, scheduled);
+	}
 
-			attendanceService.getStudentsBelowAttendance(threshold)
-					.forEach(id -> report.append("Student ID: ").append(id).append("\n"));
+	private static long elapsedMillis(long startNanos) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	}
 
-			writeReport(REPORT_FOLDER + "low-attendance-report.txt", report.toString());
-		});
+	// ================= WRITERS =================
+
+	// Opens a new archive file for the report in every configured format and writes the header details
+	private ReportOutputs open(ReportType type, ReportLayout layout, Map<ReportLayout.Column, Object> details) {
+		return ReportOutputs.open(archive, type.getBaseName(), layout, reports.formatters(), details);
 	}
 
-	@Override
-	public void generateTeacherCourseMappingReportAsync() {
+	private static Map<ReportLayout.Column, Object> details() {
+		Map<ReportLayout.Column, Object> details = new LinkedHashMap<>();
+		details.put(MaterializedReports.GENERATED_AT, LocalDateTime.now().withNano(0));
+		return details;
+	}
 
-		runAsync(() -> {
+	private void writeStudentReport(Rows rows) {
 
-			StringBuilder report = new StringBuilder(2048);
+		try (ReportOutputs report = open(ReportType.STUDENT, MaterializedReports.STUDENT_LAYOUT, details())) {
+			rows.students().forEachInKeyOrder((studentId, row) -> report.row(row));
+			report.publish();
+		}
+	}
 
-			report.append("===== TEACHER COURSE MAPPING =====\n").append("Generated At: ")
-					.append(LocalDateTime.now().format(FORMATTER)).append("\n\n");
+	private void writeTeacherReport(Rows rows) {
 
-			teacherService.getTeacherCourseMapping()
-					.forEach((teacher, course) -> report.append(teacher).append(" -> ").append(course).append("\n"));
+		try (ReportOutputs report = open(ReportType.TEACHER, MaterializedReports.TEACHER_LAYOUT, details())) {
+			rows.teachers().forEachInKeyOrder((teacherId, row) -> report.row(row));
+			report.publish();
+		}
+	}
 
-			writeReport(REPORT_FOLDER + "teacher-course-mapping-report.txt", report.toString());
-		});
+	private void writeStudentByCourseReport(Rows rows) {
+
+		try (ReportOutputs report = open(ReportType.STUDENT_BY_COURSE, MaterializedReports.STUDENT_BY_COURSE_LAYOUT,
+				details())) {
+
+			rows.courses().forEachInKeyOrder((courseId, students) -> {
+				report.section(courseId);
+				students.forEachInKeyOrder((studentId, row) -> report.row(row));
+				report.sectionEnd();
+			});
+
+			report.publish();
+		}
 	}
 
-	// ================= ALL =================
+	private void writePendingFeesReport(Rows rows) {
 
-	@Override
-	public void generateAllReportsAsync() {
-
-		runAsync(() -> {
-			generateStudentReportAsync();
-			generateTeacherReportAsync();
-			generateStudentByCourseReportAsync();
-			generatePendingFeesReportAsync();
-			generateLowAttendanceReportAsync(75);
-			generateTeacherCourseMappingReportAsync();
-		});
+		try (ReportOutputs report = open(ReportType.PENDING_FEES, MaterializedReports.PENDING_FEES_LAYOUT,
+				details())) {
+			rows.pendingFees().forEachInKeyOrder((studentId, row) -> report.row(row));
+			report.publish();
+		}
+	}
+
+	// Not kept between runs: the threshold varies, and the rows are only ids
+	private void writeLowAttendanceReport(double threshold, Rows rows) {
+
+		List<Integer> studentIds = rows.snapshot().studentsBelowAttendance(threshold);
+
+		Map<ReportLayout.Column, Object> details = new LinkedHashMap<>();
+		details.put(MaterializedReports.THRESHOLD, threshold);
+		details.putAll(details());
+
+		try (ReportOutputs report = open(ReportType.LOW_ATTENDANCE, MaterializedReports.LOW_ATTENDANCE_LAYOUT,
+				details)) {
+			studentIds.forEach(report::row);
+			report.publish();
+		}
+	}
+
+	private void writeTeacherCourseMappingReport(Rows rows) {
+
+		try (ReportOutputs report = open(ReportType.TEACHER_COURSE_MAPPING,
+				MaterializedReports.TEACHER_COURSE_MAPPING_LAYOUT, details())) {
+			rows.teacherCourses().forEachInKeyOrder((teacherId, row) -> report.row(row));
+			report.publish();
+		}
 	}
 
 	@Override
 	public void shutdown() {
 
+		scheduler.shutdownNow();
+		schedules.clear();
+
 		executor.shutdown();
 		try {
 			if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
@@ -226,8 +482,72 @@ public class ReportServiceImpl implements ReportService {
 			executor.shutdownNow();
 			Thread.currentThread().interrupt();
 		}
+		studentService.removeChangeListener(changeListener);
+		teacherService.removeChangeListener(changeListener);
+		attendanceService.removeChangeListener(changeListener);
+		paymentService.removeChangeListener(changeListener);
+		formatPool.shutdown();
 
 		System.out.println("ReportService shutdown complete.");
 	}
 
+	private static final class Schedule {
+
+		private final Duration interval;
+		private final ScheduledFuture<?> task;
+
+		Schedule(Duration interval, ScheduledFuture<?> task) {
+			this.interval = interval;
+			this.task = task;
+		}
+	}
+
+	private static final class RunStats {
+
+		private long runs;
+		private long failures;
+		private long lastMillis;
+		private long maxMillis;
+		private long totalMillis;
+		private String lastError;
+
+		synchronized void record(ReportResult result) {
+			runs++;
+			lastMillis = result.getElapsedMillis();
+			maxMillis = Math.max(maxMillis, lastMillis);
+			totalMillis += lastMillis;
+			if (result.getStatus() == ReportResult.Status.FAILED) {
+				failures++;
+				lastError = result.getError();
+			}
+		}
+
+		// A batch entry whose inputs failed: a failure, but not a run with a time
+		synchronized void recordNotRun(String error) {
+			failures++;
+			lastError = error;
+		}
+
+		synchronized ReportMetrics.ReportStats snapshot() {
+			return new ReportMetrics.ReportStats(runs, failures, lastMillis, maxMillis, totalMillis, lastError);
+		}
+	}
+
+	private static final class ReportThreadFactory implements ThreadFactory {
+
+		private final String prefix;
+		private final AtomicInteger count = new AtomicInteger();
+
+		ReportThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable task) {
+			Thread thread = new Thread(task, prefix + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
 }
@@ -0,0 +1,99 @@
+package service.impl;
+
+import model.PaymentSummary;
+import model.Student;
+import model.Teacher;
+import service.AttendanceService;
+import service.PaymentService;
+import service.StudentService;
+import service.TeacherService;
+import util.PersistentIntMap;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The data behind the reports, as it was at one instant. Every report built
+ * from the same snapshot agrees with the others, whatever the services do
+ * meanwhile; capturing one copies nothing.
+ */
+final class ReportSnapshot {
+
+	private final PersistentIntMap<Student> students;
+	private final PersistentIntMap<Teacher> teachers;
+	private final PersistentIntMap<Double> attendance;
+	private final PersistentIntMap<PaymentSummary> payments;
+
+	private ReportSnapshot(PersistentIntMap<Student> students, PersistentIntMap<Teacher> teachers,
+			PersistentIntMap<Double> attendance, PersistentIntMap<PaymentSummary> payments) {
+		this.students = students;
+		this.teachers = teachers;
+		this.attendance = attendance;
+		this.payments = payments;
+	}
+
+	static ReportSnapshot capture(StudentService studentService, TeacherService teacherService,
+			AttendanceService attendanceService, PaymentService paymentService) {
+
+		return SnapshotCoordinator.capture(() -> new ReportSnapshot(studentService.getStudentSnapshot(),
+				teacherService.getTeacherSnapshot(), attendanceService.getAttendanceSnapshot(),
+				paymentService.getPaymentSummarySnapshot()));
+	}
+
+	Student student(Integer studentId) {
+		return students.get(studentId);
+	}
+
+	Teacher teacher(Integer teacherId) {
+		return teachers.get(teacherId);
+	}
+
+	List<Integer> studentIds() {
+		return ids(students);
+	}
+
+	List<Integer> teacherIds() {
+		return ids(teachers);
+	}
+
+	// Includes students who have since been deleted but still have payments
+	List<Integer> paymentStudentIds() {
+		return ids(payments);
+	}
+
+	// No attendance yet counts as 0%
+	double attendancePercentage(Integer studentId) {
+		return attendance.getOrDefault(studentId, 0.0);
+	}
+
+	BigDecimal totalPaid(Integer studentId) {
+		return payments.getOrDefault(studentId, PaymentSummary.EMPTY).getTotalPaid();
+	}
+
+	/** Pending amount of the student, or null when nothing is pending. */
+	BigDecimal pendingFee(Integer studentId) {
+		PaymentSummary summary = payments.get(studentId);
+		return summary == null || summary.getPending().signum() <= 0 ? null : summary.getTotalPending();
+	}
+
+	// Lowest attendance first, as AttendanceService orders them
+	List<Integer> studentsBelowAttendance(double threshold) {
+
+		List<Integer> below = new ArrayList<>();
+		attendance.forEach((studentId, percentage) -> {
+			if (percentage < threshold) {
+				below.add(studentId);
+			}
+		});
+		below.sort(Comparator.comparingDouble((Integer id) -> attendance.get(id)).thenComparing(id -> id));
+		return below;
+	}
+
+	private static List<Integer> ids(PersistentIntMap<?> map) {
+		List<Integer> ids = new ArrayList<>(map.size());
+		map.forEach((id, value) -> ids.add(id));
+		return ids;
+	}
+}
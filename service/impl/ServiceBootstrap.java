@@ -0,0 +1,161 @@
+package service.impl;
+
+import model.Course;
+import model.Payment;
+import model.Student;
+import service.*;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Builds the service graph with every data file loaded concurrently.
+ *
+ * Each file is read and parsed on its own pool thread; services are then
+ * assembled as soon as their own data and the services they reference are
+ * ready (teachers -> courses -> payments -> students, with attendance wired
+ * to students last), so startup takes roughly as long as the slowest file.
+ * The login service is built once the registration service has migrated any
+ * plain-text passwords, so no login sees them.
+ *
+ * Per-file load times are printed only with {@code -Dsmartinstitute.startupTiming=true}.
+ */
+public final class ServiceBootstrap {
+
+	private static final int MAX_LOADERS = 6;
+
+	private static final boolean PRINT_TIMING = Boolean.getBoolean("smartinstitute.startupTiming");
+
+	private final TeacherService teacherService;
+	private final CourseService courseService;
+	private final AttendanceService attendanceService;
+	private final PaymentService paymentService;
+	private final StudentService studentService;
+	private final RegistrationService registrationService;
+	private final LoginService loginService;
+
+	private ServiceBootstrap(TeacherService teacherService, CourseService courseService,
+			AttendanceService attendanceService, PaymentService paymentService, StudentService studentService,
+			RegistrationService registrationService, LoginService loginService) {
+
+		this.teacherService = teacherService;
+		this.courseService = courseService;
+		this.attendanceService = attendanceService;
+		this.paymentService = paymentService;
+		this.studentService = studentService;
+		this.registrationService = registrationService;
+		this.loginService = loginService;
+	}
+
+	public static ServiceBootstrap load() {
+
+		ExecutorService pool = newLoaderPool();
+		long start = System.nanoTime();
+
+		try {
+			// independent file loads
+			CompletableFuture<TeacherService> teachers = timed(pool, TeacherServiceImpl.TEACHER_FILE,
+					TeacherServiceImpl::new);
+			CompletableFuture<RegistrationService> registrations = timed(pool, RegistrationServiceImpl.USERS_FILE,
+					RegistrationServiceImpl::new);
+			CompletableFuture<Map<Integer, Course>> courseData = timed(pool, CourseServiceImpl.COURSE_FILE,
+					CourseServiceImpl::loadCoursesFromFile);
+			CompletableFuture<Map<Integer, AttendanceBitmap>> attendanceData = timed(pool,
+					AttendanceServiceImpl.ATTENDANCE_FILE, AttendanceServiceImpl::loadAttendanceFromFile);
+			CompletableFuture<Map<Integer, Payment>> paymentData = timed(pool, PaymentServiceImpl.PAYMENT_FILE,
+					PaymentServiceImpl::loadPaymentsFromFile);
+			CompletableFuture<Map<Integer, Student>> studentData = timed(pool, StudentServiceImpl.STUDENT_FILE,
+					StudentServiceImpl::loadStudentsFromFile);
+
+			// assembly along the service dependencies
+			CompletableFuture<CourseService> courses = teachers.thenCombine(courseData, CourseServiceImpl::new);
+			CompletableFuture<AttendanceServiceImpl> attendance = attendanceData
+					.thenApply(AttendanceServiceImpl::new);
+			CompletableFuture<PaymentService> payments = courses.thenCombine(paymentData, PaymentServiceImpl::new);
+			CompletableFuture<LoginService> logins = registrations.thenApply(ready -> new LoginServiceImpl());
+			CompletableFuture<StudentService> students = CompletableFuture.allOf(payments, attendance, studentData)
+					.thenApply(ready -> new StudentServiceImpl(payments.join(), attendance.join(), studentData.join()));
+
+			AttendanceServiceImpl attendanceService = join(attendance);
+			StudentService studentService = join(students);
+			attendanceService.setStudentService(studentService);
+
+			if (PRINT_TIMING) {
+				System.out.println("Startup data loaded in " + millis(start) + " ms");
+			}
+
+			return new ServiceBootstrap(join(teachers), join(courses), attendanceService, join(payments),
+					studentService, join(registrations), join(logins));
+
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	public TeacherService getTeacherService() {
+		return teacherService;
+	}
+
+	public CourseService getCourseService() {
+		return courseService;
+	}
+
+	public AttendanceService getAttendanceService() {
+		return attendanceService;
+	}
+
+	public PaymentService getPaymentService() {
+		return paymentService;
+	}
+
+	public StudentService getStudentService() {
+		return studentService;
+	}
+
+	public RegistrationService getRegistrationService() {
+		return registrationService;
+	}
+
+	public LoginService getLoginService() {
+		return loginService;
+	}
+
+	private static <T> CompletableFuture<T> timed(Executor pool, String file, Supplier<T> loader) {
+		return CompletableFuture.supplyAsync(() -> {
+			long start = System.nanoTime();
+			T loaded = loader.get();
+			if (PRINT_TIMING) {
+				System.out.println("Loaded " + file + " in " + millis(start) + " ms");
+			}
+			return loaded;
+		}, pool);
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new RuntimeException("Startup loading failed", e.getCause());
+		}
+	}
+
+	private static long millis(long startNanos) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+	}
+
+	private static ExecutorService newLoaderPool() {
+		AtomicInteger count = new AtomicInteger();
+		int threads = Math.min(MAX_LOADERS, Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+		return Executors.newFixedThreadPool(threads, task -> {
+			Thread thread = new Thread(task, "startup-loader-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+}
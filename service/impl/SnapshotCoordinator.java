@@ -0,0 +1,39 @@
+package service.impl;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Lets a reader capture the published views of several services at one instant.
+ *
+ * Services publish their readable state as immutable PersistentIntMaps held in
+ * volatile fields, so a single publish is already atomic. Updates that must
+ * become visible together run inside {@link #atomically}; writers only share
+ * the lock, so they never wait for each other, only for the few volatile
+ * reads of a {@link #capture}.
+ */
+final class SnapshotCoordinator {
+
+	private static final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private SnapshotCoordinator() {
+	}
+
+	static void atomically(Runnable updates) {
+		lock.readLock().lock();
+		try {
+			updates.run();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	static <T> T capture(Supplier<T> reads) {
+		lock.writeLock().lock();
+		try {
+			return reads.get();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package service.impl;
 
+import model.ChangeEvent;
 import model.Student;
 import model.StudentReport;
 import service.StudentService;
@@ -8,68 +9,86 @@ import service.AttendanceService;
 import util.ValidationUtil;
 import util.FileUtil;
 import util.IdGenerator;
+import util.IdGenerator.Sequence;
+import util.ChangeListeners;
+import util.CsvBufferReader;
+import util.PersistentIntMap;
 import exception.StudentNotFoundException;
 
-import java.io.File;
 import java.math.BigDecimal;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class StudentServiceImpl implements StudentService {
 
 	private static final Map<Integer, Student> studentMap = new ConcurrentHashMap<>();
 
+	// Published copy of studentMap for snapshots, refreshed after every change
+	private static final AtomicReference<PersistentIntMap<Student>> published = new AtomicReference<>(
+			PersistentIntMap.empty());
+	private static final ChangeListeners listeners = new ChangeListeners();
+
 	private final PaymentService paymentService;
 	private final AttendanceService attendanceService;
 
-	private static final String STUDENT_FILE = "data/students.csv";
+	static final String STUDENT_FILE = "data/students.csv";
 	private static final String STUDENT_LOG = "data/student-logs.txt";
 
 	public StudentServiceImpl(PaymentService paymentService, AttendanceService attendanceService) {
+		this(paymentService, attendanceService, loadStudentsFromFile());
+	}
+
+	StudentServiceImpl(PaymentService paymentService, AttendanceService attendanceService,
+			Map<Integer, Student> loadedStudents) {
 		this.paymentService = paymentService;
 		this.attendanceService = attendanceService;
-		loadStudentsFromFile();
+		studentMap.putAll(loadedStudents);
+		published.updateAndGet(students -> PersistentIntMap.of(studentMap));
+	}
+
+	// Re-reads the live entry on every attempt, so concurrent changes to one student converge
+	private static void publish(Integer studentId) {
+		published.updateAndGet(students -> {
+			Student current = studentMap.get(studentId);
+			return current == null ? students.minus(studentId) : students.plus(studentId, current);
+		});
+		listeners.fire(ChangeEvent.Type.STUDENT, studentId);
 	}
 
 	// ================= LOAD STUDENTS =================
-	private void loadStudentsFromFile() {
-		File file = new File(STUDENT_FILE);
-		if (!file.exists())
-			return;
-
-		String content = FileUtil.readFile(STUDENT_FILE);
-		if (content.isBlank())
-			return;
-
-		String[] lines = content.split("\\R");
-
-		for (int i = 1; i < lines.length; i++) { // skip header
-			String line = lines[i];
-			String[] parts = line.split(",");
-			if (parts.length != 4) {
-				System.out.println("Skipping invalid line: " + line);
-				continue;
+	static Map<Integer, Student> loadStudentsFromFile() {
+		Map<Integer, Student> studentMap = new HashMap<>();
+		// tracked while the rows are read, so the sequence check needs no second pass
+		int[] maxId = new int[1];
+
+		CsvBufferReader.forEachRow(STUDENT_FILE, true, row -> {
+			if (row.columns() != 4) {
+				System.out.println("Skipping invalid line: " + row.line());
+				return;
 			}
 
 			try {
-				Integer id = Integer.parseInt(parts[0].trim());
-				String name = parts[1].trim();
-				String email = parts[2].trim();
-				Integer courseId = Integer.parseInt(parts[3].trim());
+				Integer id = row.getInt(0);
+				String name = row.getString(1);
+				String email = row.getString(2);
+				Integer courseId = row.getInt(3);
 
 				studentMap.put(id, new Student(id,name, email, courseId));
+				maxId[0] = Math.max(maxId[0], id);
 			} catch (NumberFormatException e) {
-				System.out.println("Skipping line with invalid number: " + line);
+				System.out.println("Skipping line with invalid number: " + row.line());
 			}
-		}
+		});
 
-		// Initialize IdGenerator with max ID
+		// The sequence never goes below the highest id in the data, even if sequences.csv is lost or stale
 		if (!studentMap.isEmpty()) {
-			Integer maxId = studentMap.values().stream().map(Student::getStudentId).max(Integer::compareTo)
-					.orElse(1000);
-			IdGenerator.initialize(maxId);
+			IdGenerator.initialize(Sequence.STUDENT, maxId[0]);
 		}
+
+		return studentMap;
 	}
 
 	// ================= SAVE STUDENTS =================
@@ -83,7 +102,7 @@ public class StudentServiceImpl implements StudentService {
 					.append(student.getCourseId()).append(System.lineSeparator());
 		}
 
-		FileUtil.overwriteFile(STUDENT_FILE, sb.toString());
+		FileUtil.writeSnapshot(STUDENT_FILE, sb.toString());
 	}
 
 	// ================= CRUD METHODS =================
@@ -95,6 +114,7 @@ public class StudentServiceImpl implements StudentService {
 			throw new IllegalArgumentException("Student already exists with id: " + student.getStudentId());
 		}
 
+		publish(student.getStudentId());
 		rewriteStudentsFile();
 		FileUtil.writeToFile(STUDENT_LOG, "ADDED: " + student.getStudentId());
 	}
@@ -133,6 +153,7 @@ public class StudentServiceImpl implements StudentService {
 		}
 
 		studentMap.remove(studentId);
+		publish(studentId);
 		rewriteStudentsFile();
 		FileUtil.writeToFile(STUDENT_LOG, "DELETED: " + studentId);
 	}
@@ -158,6 +179,7 @@ public class StudentServiceImpl implements StudentService {
 		}
 
 		studentMap.put(student.getStudentId(), student);
+		publish(student.getStudentId());
 		rewriteStudentsFile();
 	}
 
@@ -166,6 +188,21 @@ public class StudentServiceImpl implements StudentService {
 		return studentMap.values().stream().collect(Collectors.groupingBy(Student::getCourseId));
 	}
 
+	@Override
+	public PersistentIntMap<Student> getStudentSnapshot() {
+		return published.get();
+	}
+
+	@Override
+	public void addChangeListener(Consumer<ChangeEvent> listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeChangeListener(Consumer<ChangeEvent> listener) {
+		listeners.remove(listener);
+	}
+
 	// ================= VALIDATIONS =================
 	private void validateStudent(Student student) {
 		if (student == null || !ValidationUtil.isNotBlank(student.getName())
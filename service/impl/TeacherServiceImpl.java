@@ -1,18 +1,24 @@
 package service.impl;
 
+import model.ChangeEvent;
 import model.Teacher;
 import service.TeacherService;
 import util.ValidationUtil;
 import util.FileUtil;
 import util.IdGenerator;
+import util.IdGenerator.Sequence;
+import util.ChangeListeners;
+import util.CsvBufferReader;
+import util.PersistentIntMap;
 
-import java.io.File;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import exception.TeacherNotFoundException;
@@ -20,48 +26,44 @@ import exception.TeacherNotFoundException;
 public class TeacherServiceImpl implements TeacherService {
 
 	private static final Map<Integer, Teacher> teacherMap = new ConcurrentHashMap<>();
+
+	// Published copy of teacherMap for snapshots, refreshed after every change
+	private static final AtomicReference<PersistentIntMap<Teacher>> published = new AtomicReference<>(
+			PersistentIntMap.empty());
+	private static final ChangeListeners listeners = new ChangeListeners();
+
 	static {
 		loadTeachersFromFile();
+		published.set(PersistentIntMap.of(teacherMap));
 	}
 
-	private static final String TEACHER_FILE = "data/teachers.csv";
+	static final String TEACHER_FILE = "data/teachers.csv";
 	private static final String TEACHER_LOG = "data/teacher-logs.txt";
 
 	private static void loadTeachersFromFile() {
 
 		try {
 
-			File file = new File(TEACHER_FILE);
-			if (!file.exists())
-				return;
-
-			String content = FileUtil.readFile(TEACHER_FILE);
-			if (content.isBlank())
-				return;
+			// tracked while the rows are read, so the sequence check needs no second pass
+			int[] maxId = new int[1];
 
-			String[] lines = content.split("\\R");
+			CsvBufferReader.forEachRow(TEACHER_FILE, true, row -> {
 
-			for (int i = 1; i < lines.length; i++) {
+				if (row.columns() != 4)
+					return;
 
-				String[] parts = lines[i].split(",");
-
-				if (parts.length != 4)
-					continue;
-
-				Integer id = Integer.parseInt(parts[0].trim());
-				String name = parts[1].trim();
-				String subject = parts[2].trim();
-				BigDecimal salary = new BigDecimal(parts[3].trim());
+				Integer id = row.getInt(0);
+				String name = row.getString(1);
+				String subject = row.getString(2);
+				BigDecimal salary = row.getDecimal(3);
 
 				Teacher teacher = new Teacher(id, name, subject, salary);
 				teacherMap.put(id, teacher);
-			}
+				maxId[0] = Math.max(maxId[0], id);
+			});
 
 			if (!teacherMap.isEmpty()) {
-
-				Integer maxId = teacherMap.keySet().stream().max(Integer::compareTo).orElse(1000);
-
-				IdGenerator.initialize(maxId);
+				IdGenerator.initialize(Sequence.TEACHER, maxId[0]);
 			}
 
 		} catch (Exception e) {
@@ -69,6 +71,15 @@ public class TeacherServiceImpl implements TeacherService {
 		}
 	}
 
+	// Re-reads the live entry on every attempt, so concurrent changes to one teacher converge
+	private static void publish(Integer teacherId) {
+		published.updateAndGet(teachers -> {
+			Teacher current = teacherMap.get(teacherId);
+			return current == null ? teachers.minus(teacherId) : teachers.plus(teacherId, current);
+		});
+		listeners.fire(ChangeEvent.Type.TEACHER, teacherId);
+	}
+
 	private static void rewriteTeachersFile() {
 
 		StringBuilder sb = new StringBuilder();
@@ -82,7 +93,7 @@ public class TeacherServiceImpl implements TeacherService {
 					.append(System.lineSeparator());
 		}
 
-		FileUtil.overwriteFile(TEACHER_FILE, sb.toString());
+		FileUtil.writeSnapshot(TEACHER_FILE, sb.toString());
 	}
 
 	@Override
@@ -95,6 +106,7 @@ public class TeacherServiceImpl implements TeacherService {
 			throw new IllegalArgumentException("Teacher already exists with id: " + teacher.getTeacherId());
 		}
 
+		publish(teacher.getTeacherId());
 		rewriteTeachersFile();
 
 		FileUtil.writeToFile(TEACHER_LOG, "ADDED: " + teacher.getTeacherId());
@@ -126,13 +138,12 @@ public class TeacherServiceImpl implements TeacherService {
 				throw new TeacherNotFoundException("Teacher not found with id: " + teacherId);
 			}
 
-			existing.setName(updatedTeacher.getName());
-			existing.setSubject(updatedTeacher.getSubject());
-			existing.setSalary(updatedTeacher.getSalary());
-
-			return existing;
+			// replaced rather than modified, so snapshots keep seeing the old values
+			return new Teacher(teacherId, updatedTeacher.getName(), updatedTeacher.getSubject(),
+					updatedTeacher.getSalary());
 		});
 
+		publish(teacherId);
 		rewriteTeachersFile();
 
 		FileUtil.writeToFile(TEACHER_LOG, "UPDATED: " + teacherId);
@@ -151,6 +162,7 @@ public class TeacherServiceImpl implements TeacherService {
 
 		teacherMap.remove(teacherId);
 
+		publish(teacherId);
 		rewriteTeachersFile();
 
 		FileUtil.writeToFile(TEACHER_LOG, "DELETED: " + teacherId);
@@ -162,6 +174,21 @@ public class TeacherServiceImpl implements TeacherService {
 		return teacherMap.values().stream().collect(Collectors.toMap(Teacher::getTeacherId, Teacher::getSubject));
 	}
 
+	@Override
+	public PersistentIntMap<Teacher> getTeacherSnapshot() {
+		return published.get();
+	}
+
+	@Override
+	public void addChangeListener(Consumer<ChangeEvent> listener) {
+		listeners.add(listener);
+	}
+
+	@Override
+	public void removeChangeListener(Consumer<ChangeEvent> listener) {
+		listeners.remove(listener);
+	}
+
 	private void validateTeacher(Teacher teacher) {
 
 		if (teacher == null || !ValidationUtil.isNotBlank(teacher.getName())
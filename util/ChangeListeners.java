@@ -0,0 +1,44 @@
+package util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import model.ChangeEvent;
+
+/**
+ * Listeners registered with a service. Listeners are called on the thread that
+ * made the change, so they should only record the event and return.
+ */
+public final class ChangeListeners {
+
+    private final List<Consumer<ChangeEvent>> listeners = new CopyOnWriteArrayList<>();
+
+    public void add(Consumer<ChangeEvent> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    public void remove(Consumer<ChangeEvent> listener) {
+        listeners.remove(listener);
+    }
+
+    public void fire(ChangeEvent.Type type, Integer id) {
+
+        if (listeners.isEmpty()) {
+            return;
+        }
+
+        ChangeEvent event = new ChangeEvent(type, id);
+        for (Consumer<ChangeEvent> listener : listeners) {
+            // a failing listener must not undo or block the change that was already made
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                System.err.println("Change listener failed for " + event + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * Startup loader for the data/*.csv files. The file is read into one heap
+ * buffer with a single bulk read and scanned byte by byte; a single reusable
+ * {@link Row} records where each field starts and ends, and the typed getters
+ * parse straight from the buffer, so no line String or String[] is created per row.
+ *
+ * The file is deliberately not memory-mapped: a mapping lives until it is
+ * garbage collected, and on Windows the services' atomic rename over the same
+ * file (startup compaction, snapshot rewrites) fails while it does.
+ *
+ * A snapshot checksum trailer (see {@link FileUtil#writeSnapshot}) is verified
+ * before any row is handed out and is never returned as a row.
+ */
+public final class CsvBufferReader {
+
+    private CsvBufferReader() { }
+
+    /**
+     * Calls the action once per data row. The row object is reused, so callers
+     * must copy out what they need before returning.
+     */
+    public static void forEachRow(String filePath, boolean skipHeader, Consumer<Row> action) {
+
+        FileUtil.flush();
+
+        File file = new File(filePath);
+        if (!file.exists() || file.length() == 0) {
+            return;
+        }
+
+        ByteBuffer buffer = readFully(filePath);
+
+        int end = FileUtil.verifiedLength(buffer, filePath);
+        Row row = new Row(buffer);
+        int position = 0;
+
+        if (skipHeader) {
+            position = nextLine(buffer, 0, end);
+        }
+
+        while (position < end) {
+            int next = nextLine(buffer, position, end);
+            if (row.scan(position, next)) {
+                action.accept(row);
+            }
+            position = next;
+        }
+    }
+
+    /** Reads the whole file into a heap buffer; the channel is closed before any row is parsed. */
+    static ByteBuffer readFully(String filePath) {
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("File too large to load: " + filePath);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the buffer is full or the file ends
+            }
+            return buffer.flip();
+
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading file: " + filePath, e);
+        }
+    }
+
+    private static int nextLine(ByteBuffer buffer, int from, int end) {
+        int i = from;
+        while (i < end && buffer.get(i) != '\n') {
+            i++;
+        }
+        return i < end ? i + 1 : end;
+    }
+
+    public static final class Row {
+
+        private static final int MAX_COLUMNS = 16;
+
+        private final ByteBuffer buffer;
+        private final int[] starts = new int[MAX_COLUMNS];
+        private final int[] ends = new int[MAX_COLUMNS];
+        private int columns;
+        private int lineStart;
+        private int lineEnd;
+
+        private Row(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        // Splits [from, to) into trimmed fields; returns false for blank lines
+        private boolean scan(int from, int to) {
+
+            lineStart = from;
+            lineEnd = to;
+            while (lineEnd > lineStart && isSpace(buffer.get(lineEnd - 1))) {
+                lineEnd--;
+            }
+            if (lineEnd == lineStart) {
+                return false;
+            }
+
+            columns = 0;
+            int fieldStart = lineStart;
+
+            for (int i = lineStart; i <= lineEnd; i++) {
+                if (i == lineEnd || buffer.get(i) == ',') {
+                    if (columns < MAX_COLUMNS) {
+                        int s = fieldStart;
+                        int e = i;
+                        while (s < e && isSpace(buffer.get(s))) {
+                            s++;
+                        }
+                        while (e > s && isSpace(buffer.get(e - 1))) {
+                            e--;
+                        }
+                        starts[columns] = s;
+                        ends[columns] = e;
+                    }
+                    columns++;
+                    fieldStart = i + 1;
+                }
+            }
+            return true;
+        }
+
+        public int columns() {
+            return columns;
+        }
+
+        /** The raw line, for error messages. */
+        public String line() {
+            return decode(lineStart, lineEnd);
+        }
+
+        public String getString(int column) {
+            return decode(starts[column], ends[column]);
+        }
+
+        public boolean getBoolean(int column) {
+            return matches(column, "true");
+        }
+
+        public int getInt(int column) {
+
+            int s = starts[column];
+            int e = ends[column];
+            boolean negative = s < e && buffer.get(s) == '-';
+            if (negative || (s < e && buffer.get(s) == '+')) {
+                s++;
+            }
+            if (s == e || e - s > 10) {
+                throw invalid(column, "int");
+            }
+
+            long value = 0;
+            for (int i = s; i < e; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw invalid(column, "int");
+                }
+                value = value * 10 + digit;
+            }
+
+            value = negative ? -value : value;
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw invalid(column, "int");
+            }
+            return (int) value;
+        }
+
+        public BigDecimal getDecimal(int column) {
+
+            int s = starts[column];
+            int e = ends[column];
+            boolean negative = s < e && buffer.get(s) == '-';
+            if (negative || (s < e && buffer.get(s) == '+')) {
+                s++;
+            }
+
+            long unscaled = 0;
+            int digits = 0;
+            int scale = -1;
+
+            for (int i = s; i < e; i++) {
+                byte b = buffer.get(i);
+                if (b == '.' && scale < 0) {
+                    scale = 0;
+                    continue;
+                }
+                if (b < '0' || b > '9' || digits == 18) {
+                    // exponents and very long values take the slow path
+                    return new BigDecimal(getString(column));
+                }
+                unscaled = unscaled * 10 + (b - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            }
+
+            if (digits == 0) {
+                throw invalid(column, "decimal");
+            }
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+        }
+
+        /** ISO yyyy-MM-dd as written by LocalDate.toString(). */
+        public LocalDate getDate(int column) {
+
+            int s = starts[column];
+            if (ends[column] - s != 10 || buffer.get(s + 4) != '-' || buffer.get(s + 7) != '-') {
+                return LocalDate.parse(getString(column));
+            }
+            return LocalDate.of(digits(column, s, 4), digits(column, s + 5, 2), digits(column, s + 8, 2));
+        }
+
+        /** ISO yyyy-MM-ddTHH:mm[:ss[.fraction]] as written by LocalDateTime.toString(). */
+        public LocalDateTime getDateTime(int column) {
+
+            int s = starts[column];
+            int length = ends[column] - s;
+
+            if (length < 16 || buffer.get(s + 4) != '-' || buffer.get(s + 7) != '-' || buffer.get(s + 10) != 'T'
+                    || buffer.get(s + 13) != ':') {
+                return LocalDateTime.parse(getString(column));
+            }
+
+            int second = 0;
+            int nano = 0;
+
+            if (length > 16) {
+                if (length < 19 || buffer.get(s + 16) != ':') {
+                    return LocalDateTime.parse(getString(column));
+                }
+                second = digits(column, s + 17, 2);
+
+                if (length > 19) {
+                    int fractionDigits = length - 20;
+                    if (buffer.get(s + 19) != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                        return LocalDateTime.parse(getString(column));
+                    }
+                    nano = digits(column, s + 20, fractionDigits);
+                    for (int i = fractionDigits; i < 9; i++) {
+                        nano *= 10;
+                    }
+                }
+            }
+
+            return LocalDateTime.of(digits(column, s, 4), digits(column, s + 5, 2), digits(column, s + 8, 2),
+                    digits(column, s + 11, 2), digits(column, s + 14, 2), second, nano);
+        }
+
+        /** Matches the field against the constant names without decoding it. */
+        public <E extends Enum<E>> E getEnum(int column, E[] constants) {
+            for (E constant : constants) {
+                if (matches(column, constant.name())) {
+                    return constant;
+                }
+            }
+            throw new IllegalArgumentException("Unknown value '" + getString(column) + "' in line: " + line());
+        }
+
+        private boolean matches(int column, String ascii) {
+
+            int s = starts[column];
+            int length = ends[column] - s;
+            if (length != ascii.length()) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (Character.toUpperCase((char) buffer.get(s + i)) != Character.toUpperCase(ascii.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int digits(int column, int from, int count) {
+            int value = 0;
+            for (int i = from; i < from + count; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    throw invalid(column, "date");
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private String decode(int from, int to) {
+            byte[] bytes = new byte[to - from];
+            buffer.get(from, bytes);
+            return new String(bytes, Charset.defaultCharset());
+        }
+
+        private NumberFormatException invalid(int column, String type) {
+            return new NumberFormatException("Invalid " + type + " '" + getString(column) + "' in line: " + line());
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+        }
+    }
+}
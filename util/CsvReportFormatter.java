@@ -0,0 +1,84 @@
+package util;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RFC 4180 CSV: a header line of column keys, then one line per row. Report
+ * details are not written; every row carries all of its columns, sections
+ * included.
+ */
+public final class CsvReportFormatter implements ReportFormatter {
+
+    @Override
+    public String name() {
+        return "csv";
+    }
+
+    @Override
+    public String extension() {
+        return "csv";
+    }
+
+    @Override
+    public void begin(StringBuilder out, ReportLayout layout, Map<ReportLayout.Column, Object> details) {
+
+        List<ReportLayout.Column> columns = layout.getColumns();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            appendField(out, columns.get(i).getKey());
+        }
+        out.append("\r\n");
+    }
+
+    @Override
+    public void row(StringBuilder out, ReportLayout layout, Object[] values) {
+
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            Object value = values[i];
+            if (value instanceof BigDecimal decimal) {
+                out.append(decimal.toPlainString());
+            } else if (value instanceof Number || value instanceof Boolean) {
+                out.append(value);
+            } else if (value != null) {
+                appendField(out, value.toString());
+            }
+        }
+        out.append("\r\n");
+    }
+
+    @Override
+    public void end(StringBuilder out, ReportLayout layout, int rowCount) {
+    }
+
+    // Quotes only the fields that need it
+    private static void appendField(StringBuilder out, String field) {
+
+        boolean quote = false;
+        for (int i = 0; i < field.length() && !quote; i++) {
+            char c = field.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!quote) {
+            out.append(field);
+            return;
+        }
+
+        out.append('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+}
@@ -1,35 +1,54 @@
 package util;
 
 import java.io.*;
-
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.CRC32;
+
+/**
+ * File access for the services. Writes are handed to the {@link PersistenceEngine}
+ * and applied by its writer thread; the {@code ...Durably} variants wait until
+ * the data is on disk.
+ *
+ * Snapshots (the data/*.csv files) end with a {@code #crc32=} trailer line over
+ * everything before it, checked by {@link #readSnapshot} and {@link CsvBufferReader}.
+ * Files written before the trailer existed are accepted as they are.
+ */
 public final class FileUtil {
 
+    private static final String CHECKSUM_PREFIX = "#crc32=";
+
     private FileUtil() { }
 
     public static void writeToFile(String filePath, String data) {
+        PersistenceEngine.getInstance().append(filePath, toLine(data), false);
+    }
 
-        try {
-            File file = new File(filePath);
-
-            File parent = file.getParentFile();
-            if (parent != null && !parent.exists()) {
-                parent.mkdirs();
-            }
-
-            try (BufferedWriter writer =
-                         new BufferedWriter(new FileWriter(file, true))) {
-
-                writer.write(data);
-                writer.newLine();
-            }
+    public static void writeToFileDurably(String filePath, String data) {
+        await(appendDurably(filePath, data));
+    }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Error writing to file: " + filePath, e);
-        }
+    /**
+     * Queues a durable append and returns at once; the future completes when the
+     * line is on disk. Lets a caller release its locks before {@link #await}ing,
+     * so concurrent writers share one fsync.
+     */
+    public static CompletableFuture<Void> appendDurably(String filePath, String data) {
+        return PersistenceEngine.getInstance().append(filePath, toLine(data), true);
     }
 
     public static String readFile(String filePath) {
 
+        flush();
+
         StringBuilder content = new StringBuilder();
 
         try (BufferedReader reader =
@@ -47,26 +66,151 @@ public final class FileUtil {
 
         return content.toString();
     }
-    
+
     public static void overwriteFile(String filePath, String data) {
+        PersistenceEngine.getInstance().overwrite(filePath, data.getBytes(Charset.defaultCharset()), false);
+    }
+
+    public static void overwriteFile(String filePath, byte[] data) {
+        PersistenceEngine.getInstance().overwrite(filePath, data, false);
+    }
+
+    public static void overwriteFileDurably(String filePath, String data) {
+        overwriteFileDurably(filePath, data.getBytes(Charset.defaultCharset()));
+    }
+
+    public static void overwriteFileDurably(String filePath, byte[] data) {
+        await(PersistenceEngine.getInstance().overwrite(filePath, data, true));
+    }
+
+    /** Overwrites a data file with the content followed by its checksum trailer. */
+    public static void writeSnapshot(String filePath, String data) {
+        PersistenceEngine.getInstance().overwrite(filePath, withChecksum(data), false);
+    }
+
+    public static void writeSnapshotDurably(String filePath, String data) {
+        await(PersistenceEngine.getInstance().overwrite(filePath, withChecksum(data), true));
+    }
+
+    /** Returns the snapshot content without its trailer, failing if the checksum does not match. */
+    public static String readSnapshot(String filePath) {
+
+        flush();
 
         try {
-            File file = new File(filePath);
+            byte[] bytes = Files.readAllBytes(Paths.get(filePath));
+            return new String(bytes, 0, verifiedLength(bytes, filePath), Charset.defaultCharset());
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading file: " + filePath, e);
+        }
+    }
 
-            File parent = file.getParentFile();
-            if (parent != null && !parent.exists()) {
-                parent.mkdirs();
-            }
+    /** Waits for queued writes; call before reading a data file directly. */
+    public static void flush() {
+        PersistenceEngine.getInstance().flush();
+    }
+
+    /**
+     * Writes the data to a temp file next to the target, forces it, then renames
+     * it over the target so readers see either the old or the new file, never a mix.
+     */
+    static void replaceAtomically(Path target, byte[] data) throws IOException {
 
-            try (BufferedWriter writer =
-                         new BufferedWriter(new FileWriter(file, false))) {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
 
-                writer.write(data);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
             }
+            channel.force(true);
+        }
 
-        } catch (IOException e) {
-            throw new RuntimeException("Error overwriting file: " + filePath, e);
+        moveAtomically(temp, target);
+    }
+
+    public static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static byte[] withChecksum(String data) {
+
+        byte[] content = data.getBytes(Charset.defaultCharset());
+        byte[] trailer = (CHECKSUM_PREFIX + Long.toHexString(crc32(content, content.length))
+                + System.lineSeparator()).getBytes(Charset.defaultCharset());
+
+        byte[] snapshot = new byte[content.length + trailer.length];
+        System.arraycopy(content, 0, snapshot, 0, content.length);
+        System.arraycopy(trailer, 0, snapshot, content.length, trailer.length);
+        return snapshot;
+    }
+
+    static int verifiedLength(byte[] bytes, String filePath) {
+        return verifiedLength(ByteBuffer.wrap(bytes), filePath);
+    }
+
+    // Length of the content before the trailer line, or the whole buffer if it has none
+    static int verifiedLength(ByteBuffer bytes, String filePath) {
+
+        int end = bytes.limit();
+        while (end > 0 && (bytes.get(end - 1) == '\n' || bytes.get(end - 1) == '\r')) {
+            end--;
+        }
+
+        int lineStart = end;
+        while (lineStart > 0 && bytes.get(lineStart - 1) != '\n') {
+            lineStart--;
+        }
+
+        if (end - lineStart <= CHECKSUM_PREFIX.length() || bytes.get(lineStart) != '#') {
+            return bytes.limit();
         }
+
+        byte[] lastLineBytes = new byte[end - lineStart];
+        bytes.duplicate().position(lineStart).get(lastLineBytes);
+
+        String lastLine = new String(lastLineBytes, Charset.defaultCharset());
+        if (!lastLine.startsWith(CHECKSUM_PREFIX)) {
+            return bytes.limit();
+        }
+
+        long expected;
+        try {
+            expected = Long.parseLong(lastLine.substring(CHECKSUM_PREFIX.length()), 16);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Corrupt checksum trailer in file: " + filePath);
+        }
+
+        if (crc32(bytes, lineStart) != expected) {
+            throw new IllegalStateException("Checksum mismatch in file: " + filePath);
+        }
+
+        return lineStart;
     }
-    
+
+    private static long crc32(byte[] bytes, int length) {
+        return crc32(ByteBuffer.wrap(bytes), length);
+    }
+
+    private static long crc32(ByteBuffer bytes, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes.duplicate().position(0).limit(length));
+        return crc.getValue();
+    }
+
+    private static byte[] toLine(String data) {
+        return (data + System.lineSeparator()).getBytes(Charset.defaultCharset());
+    }
+
+    /** Waits for a queued write, rethrowing its failure. */
+    public static void await(CompletableFuture<Void> write) {
+        PersistenceEngine.getInstance().await(write);
+    }
+
 }
@@ -1,19 +1,125 @@
 package util;
 
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Per-entity id sequences that survive restarts.
+ *
+ * Ids are handed out from an in-memory counter. Before a counter passes the
+ * last reserved id, the next block of {@link #BLOCK_SIZE} ids is written
+ * durably to {@code data/sequences.csv}; after a crash a sequence resumes
+ * above its reserved block, so an id is never issued twice (unused ids in the
+ * block are skipped). Each loader also passes the highest id it read to
+ * {@link #initialize}, which covers a sequences file older than the data.
+ * Loaders track that id in the row callback they already run, so the check
+ * costs no extra pass over the data.
+ */
 public final class IdGenerator {
 
-    private static final AtomicInteger counter = new AtomicInteger(1000);
+    public enum Sequence {
+        STUDENT, TEACHER, COURSE, PAYMENT, USER
+    }
+
+    static final int BLOCK_SIZE = 1000;
+
+    private static final int FIRST_ID = 1000;
+    private static final String SEQUENCE_FILE = "data/sequences.csv";
+
+    private static final Map<Sequence, SequenceState> sequences = new EnumMap<>(Sequence.class);
+
+    static {
+        for (Sequence sequence : Sequence.values()) {
+            sequences.put(sequence, new SequenceState());
+        }
+        loadSequences();
+    }
 
     private IdGenerator() { }
 
-    public static Integer generateId() {
-        return counter.incrementAndGet();
+    public static Integer generateId(Sequence sequence) {
+        SequenceState state = sequences.get(sequence);
+        int id = state.counter.incrementAndGet();
+        if (id > state.reservedThrough) {
+            reserveThrough(state, id);
+        }
+        return id;
+    }
+
+    /**
+     * Raises the sequence to at least the highest id found in the data. Loaders
+     * call it on every start with the id they tracked while reading, so a lost
+     * or stale sequences file (restore, partial copy) can never make an id be
+     * issued twice.
+     */
+    public static synchronized void initialize(Sequence sequence, Integer lastId) {
+        SequenceState state = sequences.get(sequence);
+        int last = state.counter.updateAndGet(current -> Math.max(current, lastId));
+        state.reservedThrough = Math.max(state.reservedThrough, last);
+    }
+
+    // Slow path, once per block: the reservation is on disk before any id in it is returned
+    private static synchronized void reserveThrough(SequenceState state, int id) {
+
+        if (id <= state.reservedThrough) {
+            return;
+        }
+
+        boolean wasPersisted = state.persisted;
+        state.persisted = true;
+
+        try {
+            saveSequences(state, id + BLOCK_SIZE - 1);
+        } catch (RuntimeException e) {
+            state.persisted = wasPersisted;
+            throw e;
+        }
+
+        state.reservedThrough = id + BLOCK_SIZE - 1;
     }
-    
-    public static void initialize(Integer lastId) {
-        counter.updateAndGet(current -> Math.max(current, lastId));
+
+    private static void loadSequences() {
+
+        CsvBufferReader.forEachRow(SEQUENCE_FILE, true, row -> {
+
+            if (row.columns() != 2) {
+                System.out.println("Skipping invalid sequence line: " + row.line());
+                return;
+            }
+
+            Sequence sequence = row.getEnum(0, Sequence.values());
+            int reserved = row.getInt(1);
+
+            // resume above the whole reserved block: ids inside it may already be in use
+            SequenceState state = sequences.get(sequence);
+            state.counter.set(reserved);
+            state.reservedThrough = reserved;
+            state.persisted = true;
+        });
+    }
+
+    private static void saveSequences(SequenceState changed, int changedReservedThrough) {
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("sequence,reservedThrough").append(System.lineSeparator());
+
+        sequences.forEach((sequence, state) -> {
+            if (state.persisted) {
+                sb.append(sequence).append(",")
+                        .append(state == changed ? changedReservedThrough : state.reservedThrough)
+                        .append(System.lineSeparator());
+            }
+        });
+
+        FileUtil.writeSnapshotDurably(SEQUENCE_FILE, sb.toString());
+    }
+
+    private static final class SequenceState {
+
+        private final AtomicInteger counter = new AtomicInteger(FIRST_ID);
+        // read without locking on the fast path; only raised under the class lock
+        private volatile int reservedThrough = FIRST_ID;
+        private boolean persisted;
     }
-    
 }
@@ -0,0 +1,111 @@
+package util;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One JSON object per report: its name, its details and a "rows" array with
+ * one object per row, keyed by column. Numbers are written as JSON numbers,
+ * amounts with their exact decimals.
+ */
+public final class JsonReportFormatter implements ReportFormatter {
+
+    @Override
+    public String name() {
+        return "json";
+    }
+
+    @Override
+    public String extension() {
+        return "json";
+    }
+
+    @Override
+    public void begin(StringBuilder out, ReportLayout layout, Map<ReportLayout.Column, Object> details) {
+
+        out.append("{\n  \"report\": ");
+        appendString(out, layout.getName());
+
+        details.forEach((detail, value) -> {
+            out.append(",\n  ");
+            appendString(out, detail.getKey());
+            out.append(": ");
+            appendValue(out, value);
+        });
+
+        out.append(",\n  \"rows\": [");
+    }
+
+    @Override
+    public void row(StringBuilder out, ReportLayout layout, Object[] values) {
+
+        List<ReportLayout.Column> columns = layout.getColumns();
+
+        out.append("\n    {");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            appendString(out, columns.get(i).getKey());
+            out.append(": ");
+            appendValue(out, values[i]);
+        }
+        out.append('}');
+    }
+
+    @Override
+    public String separator() {
+        return ",";
+    }
+
+    @Override
+    public void end(StringBuilder out, ReportLayout layout, int rowCount) {
+        out.append(rowCount == 0 ? "]\n}\n" : "\n  ]\n}\n");
+    }
+
+    private static void appendValue(StringBuilder out, Object value) {
+
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof BigDecimal decimal) {
+            out.append(decimal.toPlainString());
+        } else if (value instanceof Double || value instanceof Float) {
+            double number = ((Number) value).doubleValue();
+            // JSON has no NaN or infinity
+            out.append(Double.isFinite(number) ? value.toString() : "null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.append(value);
+        } else if (value instanceof LocalDateTime time) {
+            appendString(out, time.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        } else {
+            appendString(out, value.toString());
+        }
+    }
+
+    private static void appendString(StringBuilder out, String text) {
+
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+            case '"' -> out.append("\\\"");
+            case '\\' -> out.append("\\\\");
+            case '\n' -> out.append("\\n");
+            case '\r' -> out.append("\\r");
+            case '\t' -> out.append("\\t");
+            default -> {
+                if (c < 0x20) {
+                    out.append("\\u00");
+                    out.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                } else {
+                    out.append(c);
+                }
+            }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,102 @@
+package util;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Salted PBKDF2-HMAC-SHA256 password hashes, stored as
+ * {@code pbkdf2-sha256$<iterations>$<salt>$<hash>} with Base64 salt and hash.
+ *
+ * The work factor is {@code smartinstitute.passwordIterations} (default 310000).
+ * Each hash keeps the iteration count it was made with, so the setting can be
+ * raised at any time; {@link #needsRehash} tells which hashes are behind.
+ */
+public final class PasswordHasher {
+
+    public static final int ITERATIONS = Integer.getInteger("smartinstitute.passwordIterations", 310_000);
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    static {
+        if (ITERATIONS < 1) {
+            throw new IllegalArgumentException("Invalid password iterations: " + ITERATIONS);
+        }
+    }
+
+    private PasswordHasher() {
+    }
+
+    public static String hash(String password) {
+        return hash(password, ITERATIONS);
+    }
+
+    public static String hash(String password, int iterations) {
+
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+
+        Base64.Encoder base64 = Base64.getEncoder();
+        return PREFIX + "$" + iterations + "$" + base64.encodeToString(salt) + "$"
+                + base64.encodeToString(derive(password, salt, iterations));
+    }
+
+    /** Whether the stored value is a hash made by this class, rather than a legacy plain-text password. */
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX + "$");
+    }
+
+    /** Checks the password against a stored hash; false for anything that is not a valid hash. */
+    public static boolean verify(String password, String stored) {
+
+        if (!isHashed(stored)) {
+            return false;
+        }
+
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+
+            // constant time, so the comparison does not leak how much of the hash matched
+            return iterations > 0 && MessageDigest.isEqual(expected, derive(password, salt, iterations));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /** Whether the hash was made with a different work factor than the configured one. */
+    public static boolean needsRehash(String stored) {
+        if (!isHashed(stored)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || !parts[1].equals(String.valueOf(ITERATIONS));
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Password hashing unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single writer thread behind {@link FileUtil}. Callers enqueue appends and
+ * overwrites; the writer collects whatever arrives within the flush interval,
+ * applies the batch in order over channels it keeps open, and forces them
+ * according to the {@link FsyncPolicy}. Overwrites are always published by
+ * atomic rename of a forced temp file, whatever the policy.
+ *
+ * A non-durable write returns before it happens, so its failure is kept and
+ * rethrown to the next caller that writes the same file. Durable writes fail
+ * their own future, including when the file could not be forced.
+ *
+ * Configured with system properties:
+ * {@code smartinstitute.flushIntervalMs} (default 5),
+ * {@code smartinstitute.fsync} = NONE | PER_BATCH | PER_WRITE (default PER_BATCH) and
+ * {@code smartinstitute.writeTimeoutMs}, the longest a caller waits for a write (default 60000).
+ */
+public final class PersistenceEngine {
+
+    public enum FsyncPolicy {
+        NONE,
+        PER_BATCH,
+        PER_WRITE
+    }
+
+    private enum Kind {
+        APPEND,
+        OVERWRITE,
+        BARRIER
+    }
+
+    private static final class WriteRequest {
+
+        private final Kind kind;
+        private final String path;
+        private final byte[] data;
+        private final boolean durable;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private WriteRequest(Kind kind, String path, byte[] data, boolean durable) {
+            this.kind = kind;
+            this.path = path;
+            this.data = data;
+            this.durable = durable;
+        }
+    }
+
+    private static final int MAX_BATCH = 1024;
+
+    private static final long WRITE_TIMEOUT_MS = Long.getLong("smartinstitute.writeTimeoutMs", 60_000L);
+
+    private static final PersistenceEngine INSTANCE = new PersistenceEngine(
+            Long.getLong("smartinstitute.flushIntervalMs", 5L),
+            FsyncPolicy.valueOf(System.getProperty("smartinstitute.fsync", "PER_BATCH").toUpperCase()));
+
+    private final long flushIntervalMs;
+    private final FsyncPolicy fsyncPolicy;
+    private final BlockingQueue<WriteRequest> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+
+    // Failures of non-durable writes, waiting for the next caller that writes the same file
+    private final Map<String, RuntimeException> unreportedFailures = new ConcurrentHashMap<>();
+
+    // Only touched by the writer thread
+    private final Map<String, FileChannel> channels = new HashMap<>();
+
+    private PersistenceEngine(long flushIntervalMs, FsyncPolicy fsyncPolicy) {
+        this.flushIntervalMs = flushIntervalMs;
+        this.fsyncPolicy = fsyncPolicy;
+
+        writer = new Thread(this::runWriter, "persistence-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flushOnShutdown, "persistence-shutdown"));
+    }
+
+    public static PersistenceEngine getInstance() {
+        return INSTANCE;
+    }
+
+    /** Queues an append; throws if an earlier non-durable write to the same file failed. */
+    public CompletableFuture<Void> append(String path, byte[] data, boolean durable) {
+        return submitWrite(new WriteRequest(Kind.APPEND, path, data, durable));
+    }
+
+    /** Queues an overwrite; throws if an earlier non-durable write to the same file failed. */
+    public CompletableFuture<Void> overwrite(String path, byte[] data, boolean durable) {
+        return submitWrite(new WriteRequest(Kind.OVERWRITE, path, data, durable));
+    }
+
+    /** Blocks until every write queued before this call has reached the files. */
+    public void flush() {
+        await(submit(new WriteRequest(Kind.BARRIER, null, null, false)));
+    }
+
+    /**
+     * Waits for a queued write, at most {@code smartinstitute.writeTimeoutMs}, and
+     * gives up at once if the writer thread has died.
+     */
+    void await(CompletableFuture<Void> write) {
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WRITE_TIMEOUT_MS);
+
+        while (true) {
+            try {
+                write.get(100, TimeUnit.MILLISECONDS);
+                return;
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException failure ? failure
+                        : new RuntimeException("Write failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for a write", e);
+            } catch (TimeoutException e) {
+                if (!writer.isAlive() && !write.isDone()) {
+                    throw new IllegalStateException("Persistence writer has stopped");
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    throw new IllegalStateException("Timed out waiting for a write after " + WRITE_TIMEOUT_MS + " ms");
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<Void> submitWrite(WriteRequest request) {
+
+        CompletableFuture<Void> done = submit(request);
+
+        // queued first, so a full snapshot can still repair the file the failed write left behind
+        RuntimeException failure = unreportedFailures.remove(request.path);
+        if (failure != null) {
+            throw new RuntimeException("An earlier write to " + request.path + " failed", failure);
+        }
+        return done;
+    }
+
+    private CompletableFuture<Void> submit(WriteRequest request) {
+        if (!writer.isAlive()) {
+            request.done.completeExceptionally(new IllegalStateException("Persistence writer has stopped"));
+            return request.done;
+        }
+        queue.add(request);
+        return request.done;
+    }
+
+    private void flushOnShutdown() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Could not write queued data on exit: " + e.getMessage());
+        }
+    }
+
+    // ================= WRITER THREAD =================
+
+    private void runWriter() {
+
+        List<WriteRequest> batch = new ArrayList<>();
+
+        while (true) {
+            try {
+                batch.add(queue.take());
+                collect(batch);
+                commit(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("Persistence writer error: " + e.getMessage());
+                batch.forEach(request -> fail(request, e));
+            } catch (Error e) {
+                // the thread is going away: nothing queued now or later may be left waiting
+                System.err.println("Persistence writer stopped: " + e);
+                batch.forEach(request -> fail(request, new IllegalStateException("Persistence writer stopped", e)));
+                List<WriteRequest> stranded = new ArrayList<>();
+                queue.drainTo(stranded);
+                stranded.forEach(request -> fail(request, new IllegalStateException("Persistence writer stopped", e)));
+                throw e;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Group commit: keep collecting until the interval elapses, a barrier arrives or the batch is full
+    private void collect(List<WriteRequest> batch) throws InterruptedException {
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+
+        while (batch.size() < MAX_BATCH && batch.get(batch.size() - 1).kind != Kind.BARRIER) {
+            long remaining = deadline - System.nanoTime();
+            WriteRequest next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<WriteRequest> batch) {
+
+        // A later overwrite of the same file supersedes everything queued for it before
+        Map<String, Integer> lastOverwrite = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i).kind == Kind.OVERWRITE) {
+                lastOverwrite.put(batch.get(i).path, i);
+            }
+        }
+
+        Set<String> touched = new HashSet<>();
+        Set<String> mustForce = new HashSet<>();
+        Map<WriteRequest, Exception> failures = new HashMap<>();
+
+        for (int i = 0; i < batch.size(); i++) {
+
+            WriteRequest request = batch.get(i);
+            if (request.kind == Kind.BARRIER || i < lastOverwrite.getOrDefault(request.path, -1)) {
+                continue;
+            }
+
+            try {
+                if (request.kind == Kind.OVERWRITE) {
+                    // Replaced by rename, so the open channel (if any) points at the old file
+                    closeChannel(request.path);
+                    FileUtil.replaceAtomically(prepare(request.path), request.data);
+                    continue;
+                }
+
+                FileChannel channel = appendChannel(request.path);
+
+                ByteBuffer buffer = ByteBuffer.wrap(request.data);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+
+                if (fsyncPolicy == FsyncPolicy.PER_WRITE) {
+                    channel.force(false);
+                } else {
+                    touched.add(request.path);
+                    if (request.durable) {
+                        mustForce.add(request.path);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                failures.put(request, e);
+                closeChannel(request.path);
+            }
+        }
+
+        if (fsyncPolicy == FsyncPolicy.PER_BATCH) {
+            mustForce.addAll(touched);
+        }
+
+        Map<String, IOException> forceFailures = new HashMap<>();
+        for (String path : mustForce) {
+            try {
+                FileChannel channel = channels.get(path);
+                if (channel != null) {
+                    channel.force(false);
+                }
+            } catch (IOException e) {
+                forceFailures.put(path, e);
+                closeChannel(path);
+            }
+        }
+
+        // the appends of a file that could not be forced may not be on disk, so none of them succeeded
+        if (!forceFailures.isEmpty()) {
+            for (WriteRequest request : batch) {
+                if (request.kind == Kind.APPEND && forceFailures.containsKey(request.path)) {
+                    failures.putIfAbsent(request, forceFailures.get(request.path));
+                }
+            }
+        }
+
+        for (WriteRequest request : batch) {
+            Exception failure = failures.get(request);
+            if (failure == null) {
+                request.done.complete(null);
+            } else {
+                System.err.println("Error writing to file: " + request.path + " (" + failure.getMessage() + ")");
+                fail(request, new RuntimeException("Error writing to file: " + request.path, failure));
+            }
+        }
+    }
+
+    private void fail(WriteRequest request, RuntimeException failure) {
+        if (!request.durable && request.path != null) {
+            unreportedFailures.put(request.path, failure);
+        }
+        request.done.completeExceptionally(failure);
+    }
+
+    private FileChannel appendChannel(String path) throws IOException {
+
+        FileChannel channel = channels.get(path);
+        if (channel == null) {
+            channel = FileChannel.open(prepare(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            channels.put(path, channel);
+        }
+        return channel;
+    }
+
+    private void closeChannel(String path) {
+
+        FileChannel channel = channels.remove(path);
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // nothing more to do for a channel we are discarding
+            }
+        }
+    }
+
+    private static Path prepare(String path) throws IOException {
+
+        Path file = Paths.get(path);
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,256 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable map from int keys to values, as a 32-way hash array mapped trie.
+ *
+ * {@link #plus} and {@link #minus} return a new map that shares every node
+ * not on the path to the changed key, so an update costs a handful of small
+ * array copies and any earlier map stays valid. Holding on to a map is
+ * therefore an O(1) point-in-time snapshot that can be read without locks.
+ */
+public final class PersistentIntMap<V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(null, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    public static <V> PersistentIntMap<V> of(Map<Integer, V> map) {
+        PersistentIntMap<V> result = empty();
+        for (Map.Entry<Integer, V> entry : map.entrySet()) {
+            result = result.plus(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+
+        Node node = root;
+        int shift = 0;
+
+        while (node != null) {
+            int bit = bit(key, shift);
+            if ((node.bitmap & bit) == 0) {
+                return null;
+            }
+            Object entry = node.entries[node.index(bit)];
+            if (entry instanceof Leaf leaf) {
+                return leaf.key == key ? (V) leaf.value : null;
+            }
+            node = (Node) entry;
+            shift += BITS;
+        }
+        return null;
+    }
+
+    public V getOrDefault(int key, V defaultValue) {
+        V value = get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    public PersistentIntMap<V> plus(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("PersistentIntMap does not store null values");
+        }
+        boolean[] added = new boolean[1];
+        Node updated = root == null ? Node.single(new Leaf(key, value), 0) : put(root, new Leaf(key, value), 0, added);
+        return updated == root ? this : new PersistentIntMap<>(updated, root == null || added[0] ? size + 1 : size);
+    }
+
+    public PersistentIntMap<V> minus(int key) {
+        if (root == null) {
+            return this;
+        }
+        Node updated = remove(root, key, 0);
+        return updated == root ? this : new PersistentIntMap<>(updated, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<Integer, ? super V> action) {
+        if (root != null) {
+            root.forEach((BiConsumer<Integer, Object>) action);
+        }
+    }
+
+    /** Like {@link #forEach}, but in ascending key order, at the cost of sorting the keys. */
+    public void forEachInKeyOrder(BiConsumer<Integer, ? super V> action) {
+        int[] keys = new int[size];
+        int[] count = new int[1];
+        forEach((key, value) -> keys[count[0]++] = key);
+        Arrays.sort(keys);
+        for (int key : keys) {
+            action.accept(key, get(key));
+        }
+    }
+
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size);
+        forEach((key, value) -> values.add(value));
+        return values;
+    }
+
+    private static int bit(int key, int shift) {
+        return 1 << ((key >>> shift) & MASK);
+    }
+
+    private static Node put(Node node, Leaf leaf, int shift, boolean[] added) {
+
+        int bit = bit(leaf.key, shift);
+        int index = node.index(bit);
+
+        if ((node.bitmap & bit) == 0) {
+            added[0] = true;
+            return node.inserted(bit, index, leaf);
+        }
+
+        Object entry = node.entries[index];
+
+        if (entry instanceof Leaf existing) {
+            if (existing.key == leaf.key) {
+                return existing.value == leaf.value ? node : node.replaced(index, leaf);
+            }
+            added[0] = true;
+            return node.replaced(index, merge(existing, leaf, shift + BITS));
+        }
+
+        Node child = (Node) entry;
+        Node updated = put(child, leaf, shift + BITS, added);
+        return updated == child ? node : node.replaced(index, updated);
+    }
+
+    // Distinct int keys always differ within the 7 levels (32 bits / 5) of the trie
+    private static Node merge(Leaf a, Leaf b, int shift) {
+
+        int bitA = bit(a.key, shift);
+        int bitB = bit(b.key, shift);
+
+        if (bitA == bitB) {
+            return new Node(bitA, new Object[] { merge(a, b, shift + BITS) });
+        }
+        return Integer.compareUnsigned(bitA, bitB) < 0 ? new Node(bitA | bitB, new Object[] { a, b })
+                : new Node(bitA | bitB, new Object[] { b, a });
+    }
+
+    // Returns the node without the key, the same node if it was absent, or null once empty
+    private static Node remove(Node node, int key, int shift) {
+
+        int bit = bit(key, shift);
+        if ((node.bitmap & bit) == 0) {
+            return node;
+        }
+
+        int index = node.index(bit);
+        Object entry = node.entries[index];
+
+        if (entry instanceof Leaf leaf) {
+            return leaf.key != key ? node : node.removed(bit, index);
+        }
+
+        Node child = (Node) entry;
+        Node updated = remove(child, key, shift + BITS);
+
+        if (updated == child) {
+            return node;
+        }
+        if (updated == null) {
+            return node.removed(bit, index);
+        }
+        // pull a lone leaf up so the trie stays as shallow as its keys allow
+        if (updated.entries.length == 1 && updated.entries[0] instanceof Leaf only) {
+            return node.replaced(index, only);
+        }
+        return node.replaced(index, updated);
+    }
+
+    private static final class Leaf {
+
+        private final int key;
+        private final Object value;
+
+        private Leaf(int key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private static final class Node {
+
+        private final int bitmap;
+        private final Object[] entries;
+
+        private Node(int bitmap, Object[] entries) {
+            this.bitmap = bitmap;
+            this.entries = entries;
+        }
+
+        private static Node single(Leaf leaf, int shift) {
+            return new Node(bit(leaf.key, shift), new Object[] { leaf });
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private Node inserted(int bit, int index, Object entry) {
+            Object[] copy = new Object[entries.length + 1];
+            System.arraycopy(entries, 0, copy, 0, index);
+            copy[index] = entry;
+            System.arraycopy(entries, index, copy, index + 1, entries.length - index);
+            return new Node(bitmap | bit, copy);
+        }
+
+        private Node replaced(int index, Object entry) {
+            Object[] copy = entries.clone();
+            copy[index] = entry;
+            return new Node(bitmap, copy);
+        }
+
+        private Node removed(int bit, int index) {
+            if (entries.length == 1) {
+                return null;
+            }
+            Object[] copy = new Object[entries.length - 1];
+            System.arraycopy(entries, 0, copy, 0, index);
+            System.arraycopy(entries, index + 1, copy, index, entries.length - index - 1);
+            return new Node(bitmap & ~bit, copy);
+        }
+
+        private void forEach(BiConsumer<Integer, Object> action) {
+            for (Object entry : entries) {
+                if (entry instanceof Leaf leaf) {
+                    action.accept(leaf.key, leaf.value);
+                } else {
+                    ((Node) entry).forEach(action);
+                }
+            }
+        }
+    }
+}
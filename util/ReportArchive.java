@@ -0,0 +1,337 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Folder of compressed, timestamped reports with an index. Every published
+ * report gets a new file, named {@code <report>-<yyyyMMdd-HHmmss-SSS>.<ext>.gz},
+ * and a line in index.csv with its sizes and how long it took.
+ *
+ * After each report the oldest files go until every limit holds: at most
+ * maxFiles of each report and format, at most maxBytes of compressed files in
+ * total, and nothing older than maxAge.
+ *
+ * At startup, report files missing from the index (left by a crash between
+ * publishing a file and writing the index, or copied in by hand) are added
+ * to it so the limits cover them, and temp files of unfinished writes are
+ * deleted. The archive expects to be the only writer of its folder.
+ */
+public final class ReportArchive {
+
+    public static final String INDEX_FILE = "index.csv";
+    private static final String INDEX_HEADER = "file,report,format,generatedAt,bytes,compressedBytes,durationMs";
+
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    // <report>-<stamp>[-n].<ext>.gz, as reserve() names them
+    private static final Pattern REPORT_FILE = Pattern
+            .compile("(.+)-(\\d{8}-\\d{6}-\\d{3})(?:-\\d+)?\\.([^.]+)\\.gz");
+
+    /** One archived report, as listed in the index. */
+    public static final class Entry {
+
+        private final String file;
+        private final String report;
+        private final String format;
+        private final LocalDateTime generatedAt;
+        private final long bytes;
+        private final long compressedBytes;
+        private final long durationMillis;
+
+        public Entry(String file, String report, String format, LocalDateTime generatedAt, long bytes,
+                long compressedBytes, long durationMillis) {
+            this.file = file;
+            this.report = report;
+            this.format = format;
+            this.generatedAt = generatedAt;
+            this.bytes = bytes;
+            this.compressedBytes = compressedBytes;
+            this.durationMillis = durationMillis;
+        }
+
+        /** File name inside the archive folder. */
+        public String getFile() {
+            return file;
+        }
+
+        public String getReport() {
+            return report;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+
+        public LocalDateTime getGeneratedAt() {
+            return generatedAt;
+        }
+
+        /** Size before compression. */
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getCompressedBytes() {
+            return compressedBytes;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+
+    private final Path folder;
+    private final String indexFile;
+    private final int maxFiles;
+    private final long maxBytes;
+    private final Duration maxAge;
+
+    // Guarded by this; oldest first
+    private final List<Entry> entries = new ArrayList<>();
+    private final Set<String> reserved = new HashSet<>();
+
+    public ReportArchive(String folder, int maxFiles, long maxBytes, Duration maxAge) {
+
+        if (maxFiles < 1 || maxBytes < 1 || maxAge == null || maxAge.isNegative() || maxAge.isZero()) {
+            throw new IllegalArgumentException("Invalid report archive limits");
+        }
+
+        this.folder = Paths.get(folder);
+        this.indexFile = this.folder.resolve(INDEX_FILE).toString();
+        this.maxFiles = maxFiles;
+        this.maxBytes = maxBytes;
+        this.maxAge = maxAge;
+
+        new File(folder).mkdirs();
+        loadIndex();
+
+        synchronized (this) {
+            boolean adopted = scanFolder();
+            if (enforceLimits() || adopted) {
+                writeIndex();
+            }
+        }
+    }
+
+    private void loadIndex() {
+
+        File file = new File(indexFile);
+        if (!file.exists()) {
+            return;
+        }
+
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(file.toPath(), Charset.defaultCharset());
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading file: " + indexFile, e);
+        }
+
+        for (String line : lines) {
+
+            String[] parts = line.split(",");
+            if (parts.length != 7 || line.equals(INDEX_HEADER)) {
+                continue;
+            }
+
+            try {
+                Entry entry = new Entry(parts[0], parts[1], parts[2], LocalDateTime.parse(parts[3]),
+                        Long.parseLong(parts[4]), Long.parseLong(parts[5]), Long.parseLong(parts[6]));
+                // files removed by hand drop out of the index
+                if (Files.exists(folder.resolve(entry.getFile()))) {
+                    entries.add(entry);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Skipping invalid report index line: " + line);
+            }
+        }
+    }
+
+    /**
+     * Adds report files that are not in the index and deletes leftover temp
+     * files; returns whether any file was added.
+     */
+    private boolean scanFolder() {
+
+        Set<String> indexed = new HashSet<>();
+        entries.forEach(entry -> indexed.add(entry.getFile()));
+
+        List<Entry> adopted = new ArrayList<>();
+
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+
+                String name = file.getFileName().toString();
+
+                if (name.endsWith(".tmp")) {
+                    // nothing writes to the folder before the archive is built
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+
+                Matcher matcher = REPORT_FILE.matcher(name);
+                if (indexed.contains(name) || !matcher.matches() || !Files.isRegularFile(file)) {
+                    continue;
+                }
+
+                try {
+                    LocalDateTime generatedAt = LocalDateTime.parse(matcher.group(2), FILE_STAMP);
+                    adopted.add(new Entry(name, matcher.group(1), ReportFormatters.nameForExtension(matcher.group(3)),
+                            generatedAt, uncompressedSize(file), Files.size(file), 0));
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Skipping unreadable report file " + name + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading folder: " + folder, e);
+        }
+
+        if (adopted.isEmpty()) {
+            return false;
+        }
+
+        System.out.println("Added " + adopted.size() + " report file(s) missing from " + indexFile);
+        entries.addAll(adopted);
+        entries.sort(Comparator.comparing(Entry::getGeneratedAt));
+        return true;
+    }
+
+    // gzip ends with the uncompressed size (modulo 4 GB), little-endian
+    private static long uncompressedSize(Path file) throws IOException {
+
+        try (FileChannel channel = FileChannel.open(file)) {
+            if (channel.size() < 18) {
+                return 0;
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            long position = channel.size() - 4;
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer, position + trailer.position()) < 0) {
+                    return 0;
+                }
+            }
+            return Integer.toUnsignedLong(trailer.getInt(0));
+        }
+    }
+
+    /**
+     * Reserves a new file for a report in the given format and returns its
+     * path. Pass it to {@link #record} once published, or {@link #release} if not.
+     */
+    public synchronized String reserve(String report, String extension, LocalDateTime generatedAt) {
+
+        String stem = report + "-" + generatedAt.format(FILE_STAMP);
+        String name = stem + "." + extension + ".gz";
+
+        // two runs of one report in the same millisecond get distinct files
+        for (int n = 2; reserved.contains(name) || Files.exists(folder.resolve(name)); n++) {
+            name = stem + "-" + n + "." + extension + ".gz";
+        }
+
+        reserved.add(name);
+        return folder.resolve(name).toString();
+    }
+
+    public synchronized void release(String path) {
+        reserved.remove(Paths.get(path).getFileName().toString());
+    }
+
+    /** Adds a published report to the index, then applies the limits. */
+    public synchronized void record(String path, String report, String format, LocalDateTime generatedAt, long bytes,
+            long durationMillis) {
+
+        String name = Paths.get(path).getFileName().toString();
+        reserved.remove(name);
+
+        long compressedBytes;
+        try {
+            compressedBytes = Files.size(Paths.get(path));
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading file: " + path, e);
+        }
+
+        entries.add(new Entry(name, report, format, generatedAt, bytes, compressedBytes, durationMillis));
+        enforceLimits();
+        writeIndex();
+    }
+
+    public synchronized List<Entry> getEntries() {
+        return List.copyOf(entries);
+    }
+
+    // Removes the oldest files until every limit holds; the newest file always stays
+    private boolean enforceLimits() {
+
+        int before = entries.size();
+        LocalDateTime oldestKept = LocalDateTime.now().minus(maxAge);
+
+        Map<String, Integer> remainingPerKind = new HashMap<>();
+        for (Entry entry : entries) {
+            remainingPerKind.merge(entry.getReport() + "." + entry.getFormat(), 1, Integer::sum);
+        }
+
+        long totalBytes = entries.stream().mapToLong(Entry::getCompressedBytes).sum();
+
+        for (Iterator<Entry> it = entries.iterator(); it.hasNext() && entries.size() > 1;) {
+
+            Entry entry = it.next();
+            String kind = entry.getReport() + "." + entry.getFormat();
+
+            if (entry.getGeneratedAt().isBefore(oldestKept) || remainingPerKind.get(kind) > maxFiles
+                    || totalBytes > maxBytes) {
+                delete(entry);
+                it.remove();
+                remainingPerKind.merge(kind, -1, Integer::sum);
+                totalBytes -= entry.getCompressedBytes();
+            }
+        }
+
+        return entries.size() != before;
+    }
+
+    private void delete(Entry entry) {
+        try {
+            Files.deleteIfExists(folder.resolve(entry.getFile()));
+        } catch (IOException e) {
+            System.err.println("Could not remove archived report " + entry.getFile() + ": " + e.getMessage());
+        }
+    }
+
+    private void writeIndex() {
+
+        StringBuilder builder = new StringBuilder(INDEX_HEADER).append(System.lineSeparator());
+
+        for (Entry entry : entries) {
+            builder.append(entry.getFile()).append(',').append(entry.getReport()).append(',')
+                    .append(entry.getFormat()).append(',')
+                    .append(entry.getGeneratedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append(',')
+                    .append(entry.getBytes()).append(',').append(entry.getCompressedBytes()).append(',')
+                    .append(entry.getDurationMillis()).append(System.lineSeparator());
+        }
+
+        // waited for, so the index never lags the files it lists
+        FileUtil.overwriteFileDurably(indexFile, builder.toString());
+    }
+}
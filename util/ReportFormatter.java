@@ -0,0 +1,42 @@
+package util;
+
+import java.util.Map;
+
+/**
+ * Writes reports in one output format. Implementations found through
+ * {@link java.util.ServiceLoader} are available next to the built-in text,
+ * CSV and JSON formats; see {@link ReportFormatters}.
+ *
+ * Rows are formatted independently of each other, so a formatted row can be
+ * kept and reused until its data changes. Anything a row needs from its
+ * neighbours, such as a comma between JSON objects, goes in {@link #separator()}.
+ */
+public interface ReportFormatter {
+
+    /** Name used to select the format, e.g. "csv". */
+    String name();
+
+    /** Extension of the report files, without the dot. */
+    String extension();
+
+    /** Writes everything before the first row; details are shown in order. */
+    void begin(StringBuilder out, ReportLayout layout, Map<ReportLayout.Column, Object> details);
+
+    /** Writes one row; values are in column order. */
+    void row(StringBuilder out, ReportLayout layout, Object[] values);
+
+    /** Written between two rows, also across sections. */
+    default String separator() {
+        return "";
+    }
+
+    /** Starts a section of a sectioned layout; value is the section column of its rows. */
+    default void section(StringBuilder out, ReportLayout layout, Object value) {
+    }
+
+    default void sectionEnd(StringBuilder out, ReportLayout layout) {
+    }
+
+    /** Writes everything after the last row. */
+    void end(StringBuilder out, ReportLayout layout, int rowCount);
+}
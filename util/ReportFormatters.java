@@ -0,0 +1,88 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * The report formats available by name: text, csv and json, plus any
+ * {@link ReportFormatter} registered on the classpath through
+ * META-INF/services. A registered format with a built-in name replaces it.
+ */
+public final class ReportFormatters {
+
+    private static final Map<String, ReportFormatter> FORMATTERS = load();
+
+    private ReportFormatters() {
+    }
+
+    private static Map<String, ReportFormatter> load() {
+
+        Map<String, ReportFormatter> formatters = new LinkedHashMap<>();
+        register(formatters, new TextReportFormatter());
+        register(formatters, new CsvReportFormatter());
+        register(formatters, new JsonReportFormatter());
+
+        try {
+            for (ReportFormatter formatter : ServiceLoader.load(ReportFormatter.class)) {
+                register(formatters, formatter);
+            }
+        } catch (ServiceConfigurationError e) {
+            // a broken plug-in must not take the built-in formats down with it
+            System.err.println("Report formatter plug-ins not loaded: " + e.getMessage());
+        }
+
+        return Collections.unmodifiableMap(formatters);
+    }
+
+    private static void register(Map<String, ReportFormatter> formatters, ReportFormatter formatter) {
+        formatters.put(formatter.name().toLowerCase(Locale.ROOT), formatter);
+    }
+
+    public static Set<String> names() {
+        return FORMATTERS.keySet();
+    }
+
+    public static ReportFormatter get(String name) {
+
+        ReportFormatter formatter = FORMATTERS.get(name.trim().toLowerCase(Locale.ROOT));
+        if (formatter == null) {
+            throw new IllegalArgumentException("Unknown report format: " + name + ", expected one of " + names());
+        }
+        return formatter;
+    }
+
+    /** Name of the format that writes files with this extension, or the extension itself if none does. */
+    public static String nameForExtension(String extension) {
+
+        for (ReportFormatter formatter : FORMATTERS.values()) {
+            if (formatter.extension().equalsIgnoreCase(extension)) {
+                return formatter.name();
+            }
+        }
+        return extension;
+    }
+
+    /** Formatters for a comma-separated list of names, in order and without repeats. */
+    public static List<ReportFormatter> parse(String names) {
+
+        List<ReportFormatter> formatters = new ArrayList<>();
+        for (String name : names.split(",")) {
+            ReportFormatter formatter = get(name);
+            if (!formatters.contains(formatter)) {
+                formatters.add(formatter);
+            }
+        }
+
+        if (formatters.isEmpty()) {
+            throw new IllegalArgumentException("No report format given");
+        }
+        return List.copyOf(formatters);
+    }
+}
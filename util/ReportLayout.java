@@ -0,0 +1,124 @@
+package util;
+
+import java.util.List;
+
+/**
+ * Shape of a report, independent of the output format: its title, its columns
+ * and how the text format lays out a row. Machine formats only use the column
+ * keys; the text format uses the labels.
+ */
+public final class ReportLayout {
+
+    /** How the text format writes a row. */
+    public enum TextStyle {
+        /** A separator line, then one padded "label : value" line per column. */
+        RECORD,
+        /** One line of "label: value" pairs joined by " | ". */
+        LINE,
+        /** One line of bare values joined by the layout's separator. */
+        PAIR
+    }
+
+    /** A column, or a detail shown above the rows. */
+    public static final class Column {
+
+        private final String key;
+        private final String label;
+        private final String unit;
+
+        public Column(String key, String label) {
+            this(key, label, "");
+        }
+
+        public Column(String key, String label, String unit) {
+            this.key = key;
+            this.label = label;
+            this.unit = unit;
+        }
+
+        /** Name in CSV headers and JSON objects. */
+        public String getKey() {
+            return key;
+        }
+
+        /** Name in the text format. */
+        public String getLabel() {
+            return label;
+        }
+
+        /** Written after the value in the text format, such as "%". */
+        public String getUnit() {
+            return unit;
+        }
+    }
+
+    private final String name;
+    private final String title;
+    private final TextStyle textStyle;
+    private final String pairSeparator;
+    private final String emptyMessage;
+    private final List<Column> columns;
+    private final int sectionColumn;
+
+    private ReportLayout(String name, String title, TextStyle textStyle, String pairSeparator, String emptyMessage,
+            List<Column> columns, int sectionColumn) {
+        this.name = name;
+        this.title = title;
+        this.textStyle = textStyle;
+        this.pairSeparator = pairSeparator;
+        this.emptyMessage = emptyMessage;
+        this.columns = List.copyOf(columns);
+        this.sectionColumn = sectionColumn;
+    }
+
+    public static ReportLayout records(String name, String title, Column... columns) {
+        return new ReportLayout(name, title, TextStyle.RECORD, null, null, List.of(columns), -1);
+    }
+
+    public static ReportLayout lines(String name, String title, String emptyMessage, Column... columns) {
+        return new ReportLayout(name, title, TextStyle.LINE, null, emptyMessage, List.of(columns), -1);
+    }
+
+    public static ReportLayout pairs(String name, String title, String separator, Column... columns) {
+        return new ReportLayout(name, title, TextStyle.PAIR, separator, null, List.of(columns), -1);
+    }
+
+    /**
+     * The same layout with rows grouped into sections by the first column. The
+     * text format writes the column once per section instead of on every row.
+     */
+    public ReportLayout sectioned() {
+        return new ReportLayout(name, title, textStyle, pairSeparator, emptyMessage, columns, 0);
+    }
+
+    /** Identifier of the report in machine formats. */
+    public String getName() {
+        return name;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public TextStyle getTextStyle() {
+        return textStyle;
+    }
+
+    public String getPairSeparator() {
+        return pairSeparator;
+    }
+
+    /** Text written instead of the rows when there are none, or null. */
+    public String getEmptyMessage() {
+        return emptyMessage;
+    }
+
+    public List<Column> getColumns() {
+        return columns;
+    }
+
+    /** Index of the column rows are grouped by, or -1 when the report has no sections. */
+    public int getSectionColumn() {
+        return sectionColumn;
+    }
+}
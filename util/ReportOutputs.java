@@ -0,0 +1,147 @@
+package util;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One report written in several formats in a single pass: each row is passed
+ * once and goes to one compressed file per format in a {@link ReportArchive}.
+ * Like {@link ReportWriter}, the files only appear on {@link #publish()}, which
+ * also lists them in the archive's index.
+ */
+public final class ReportOutputs implements AutoCloseable {
+
+    private final ReportArchive archive;
+    private final String report;
+    private final LocalDateTime generatedAt;
+    private final long startNanos = System.nanoTime();
+    private final ReportLayout layout;
+    private final List<ReportFormatter> formatters;
+    private final List<String> paths = new ArrayList<>();
+    private final List<ReportWriter> writers = new ArrayList<>();
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    private int rowCount;
+    private boolean published;
+
+    private ReportOutputs(ReportArchive archive, String report, ReportLayout layout,
+            List<ReportFormatter> formatters) {
+        this.archive = archive;
+        this.report = report;
+        this.generatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        this.layout = layout;
+        this.formatters = formatters;
+    }
+
+    /** Opens one archive file per formatter for the named report and writes the header details. */
+    public static ReportOutputs open(ReportArchive archive, String report, ReportLayout layout,
+            List<ReportFormatter> formatters, Map<ReportLayout.Column, Object> details) {
+
+        ReportOutputs outputs = new ReportOutputs(archive, report, layout, formatters);
+
+        try {
+            for (ReportFormatter formatter : formatters) {
+                String path = archive.reserve(report, formatter.extension(), outputs.generatedAt);
+                outputs.paths.add(path);
+                outputs.writers.add(ReportWriter.openCompressed(path));
+            }
+            for (int i = 0; i < formatters.size(); i++) {
+                outputs.buffer.setLength(0);
+                formatters.get(i).begin(outputs.buffer, layout, details);
+                outputs.writers.get(i).append(outputs.buffer);
+            }
+        } catch (RuntimeException e) {
+            outputs.close();
+            throw e;
+        }
+        return outputs;
+    }
+
+    /** Formats a row for each of the formatters, in their order, to be kept and passed to {@link #row(String[])}. */
+    public static String[] render(ReportLayout layout, List<ReportFormatter> formatters, Object[] values) {
+
+        String[] rendered = new String[formatters.size()];
+        StringBuilder out = new StringBuilder(128);
+
+        for (int i = 0; i < rendered.length; i++) {
+            out.setLength(0);
+            formatters.get(i).row(out, layout, values);
+            rendered[i] = out.toString();
+        }
+        return rendered;
+    }
+
+    /** Writes a row already formatted by {@link #render} with the same formatters. */
+    public void row(String[] rendered) {
+
+        for (int i = 0; i < writers.size(); i++) {
+            if (rowCount > 0) {
+                writers.get(i).append(formatters.get(i).separator());
+            }
+            writers.get(i).append(rendered[i]);
+        }
+        rowCount++;
+    }
+
+    public void row(Object... values) {
+
+        for (int i = 0; i < writers.size(); i++) {
+            buffer.setLength(0);
+            if (rowCount > 0) {
+                buffer.append(formatters.get(i).separator());
+            }
+            formatters.get(i).row(buffer, layout, values);
+            writers.get(i).append(buffer);
+        }
+        rowCount++;
+    }
+
+    public void section(Object value) {
+        for (int i = 0; i < writers.size(); i++) {
+            buffer.setLength(0);
+            formatters.get(i).section(buffer, layout, value);
+            writers.get(i).append(buffer);
+        }
+    }
+
+    public void sectionEnd() {
+        for (int i = 0; i < writers.size(); i++) {
+            buffer.setLength(0);
+            formatters.get(i).sectionEnd(buffer, layout);
+            writers.get(i).append(buffer);
+        }
+    }
+
+    /** Finishes every file, moves it into the archive and adds it to the index. */
+    public void publish() {
+
+        for (int i = 0; i < writers.size(); i++) {
+            buffer.setLength(0);
+            formatters.get(i).end(buffer, layout, rowCount);
+            writers.get(i).append(buffer);
+        }
+
+        // one pass wrote every format, so they share the duration
+        long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        // recorded one by one, so a file that did get published is always in the index
+        for (int i = 0; i < writers.size(); i++) {
+            writers.get(i).publish();
+            archive.record(paths.get(i), report, formatters.get(i).name(), generatedAt,
+                    writers.get(i).getBytesWritten(), durationMillis);
+        }
+        published = true;
+    }
+
+    @Override
+    public void close() {
+        writers.forEach(ReportWriter::close);
+        if (!published) {
+            paths.forEach(archive::release);
+        }
+    }
+}
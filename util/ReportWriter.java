@@ -0,0 +1,192 @@
+package util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a report incrementally, as its rows are produced, through fixed-size
+ * char and byte buffers into a temp file in the report's folder. Memory use
+ * does not depend on the size of the report.
+ *
+ * {@link #publish()} renames the finished file over the target so readers
+ * never see a partial report; closing without publishing discards it.
+ * A compressed writer GZIPs the bytes on their way to the file, so no
+ * uncompressed copy is ever written.
+ */
+public final class ReportWriter implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE * 4);
+    // replaces unmappable characters, as String.getBytes does for the other files
+    private final CharsetEncoder encoder = Charset.defaultCharset().newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    // null when writing uncompressed
+    private final GZIPOutputStream gzip;
+
+    private long bytesWritten;
+    private boolean open = true;
+
+    private ReportWriter(Path target, Path temp, FileChannel channel, boolean compressed) throws IOException {
+        this.target = target;
+        this.temp = temp;
+        this.channel = channel;
+        this.gzip = compressed ? new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE * 4) : null;
+    }
+
+    public static ReportWriter open(String filePath) {
+        return open(filePath, false);
+    }
+
+    /** Opens a writer that GZIPs the report; the path should end in ".gz". */
+    public static ReportWriter openCompressed(String filePath) {
+        return open(filePath, true);
+    }
+
+    private static ReportWriter open(String filePath, boolean compressed) {
+
+        Path target = Paths.get(filePath).toAbsolutePath();
+
+        try {
+            Files.createDirectories(target.getParent());
+            // unique name, so two runs of the same report never share a temp file
+            Path temp = target.resolveSibling(target.getFileName() + "." + System.nanoTime() + ".tmp");
+            FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            try {
+                return new ReportWriter(target, temp, channel, compressed);
+            } catch (IOException e) {
+                channel.close();
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening report: " + filePath, e);
+        }
+    }
+
+    public ReportWriter append(CharSequence text) {
+
+        String value = String.valueOf(text);
+        int from = 0;
+
+        while (from < value.length()) {
+            if (!chars.hasRemaining()) {
+                drain(false);
+            }
+            int count = Math.min(chars.remaining(), value.length() - from);
+            chars.put(value, from, from + count);
+            from += count;
+        }
+        return this;
+    }
+
+    public ReportWriter append(char c) {
+        if (!chars.hasRemaining()) {
+            drain(false);
+        }
+        chars.put(c);
+        return this;
+    }
+
+    public ReportWriter append(Object value) {
+        return append(String.valueOf(value));
+    }
+
+    /** Size of the report before compression, in bytes. */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /** Writes out the remaining buffers, forces the file and moves it over the target. */
+    public void publish() {
+
+        drain(true);
+
+        try {
+            encoder.flush(bytes);
+            writeBytes();
+            if (gzip != null) {
+                gzip.finish();
+            }
+            channel.force(true);
+            channel.close();
+            FileUtil.moveAtomically(temp, target);
+            open = false;
+        } catch (IOException e) {
+            throw new RuntimeException("Error publishing report: " + target, e);
+        }
+    }
+
+    @Override
+    public void close() {
+
+        if (!open) {
+            return;
+        }
+        open = false;
+
+        try {
+            channel.close();
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            System.err.println("Could not discard unfinished report " + temp + ": " + e.getMessage());
+        }
+    }
+
+    // Encodes the buffered chars and writes whatever fills the byte buffer
+    private void drain(boolean endOfInput) {
+
+        chars.flip();
+
+        try {
+            while (true) {
+                CoderResult result = encoder.encode(chars, bytes, endOfInput);
+                if (result.isOverflow()) {
+                    writeBytes();
+                } else if (result.isUnderflow()) {
+                    break;
+                } else {
+                    result.throwException();
+                }
+            }
+            if (endOfInput || bytes.remaining() < BUFFER_SIZE) {
+                writeBytes();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing report: " + target, e);
+        }
+
+        // keeps a trailing half of a surrogate pair for the next round
+        chars.compact();
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        bytesWritten += bytes.remaining();
+        if (gzip != null) {
+            gzip.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        } else {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+        bytes.clear();
+    }
+}
@@ -0,0 +1,121 @@
+package util;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/** The human-readable layout the reports have always had. */
+public final class TextReportFormatter implements ReportFormatter {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String RECORD_SEPARATOR = "--------------------------------\n";
+
+    @Override
+    public String name() {
+        return "text";
+    }
+
+    @Override
+    public String extension() {
+        return "txt";
+    }
+
+    @Override
+    public void begin(StringBuilder out, ReportLayout layout, Map<ReportLayout.Column, Object> details) {
+
+        out.append("===== ").append(layout.getTitle()).append(" =====\n");
+        details.forEach((detail, value) -> {
+            out.append(detail.getLabel()).append(": ");
+            appendValue(out, value);
+            out.append(detail.getUnit()).append('\n');
+        });
+        out.append('\n');
+    }
+
+    @Override
+    public void row(StringBuilder out, ReportLayout layout, Object[] values) {
+
+        List<ReportLayout.Column> columns = layout.getColumns();
+        int section = layout.getSectionColumn();
+
+        switch (layout.getTextStyle()) {
+        case RECORD -> {
+            int width = 0;
+            for (ReportLayout.Column column : columns) {
+                width = Math.max(width, column.getLabel().length());
+            }
+
+            out.append(RECORD_SEPARATOR);
+            for (int i = 0; i < columns.size(); i++) {
+                String label = columns.get(i).getLabel();
+                out.append(label);
+                for (int pad = label.length(); pad < width; pad++) {
+                    out.append(' ');
+                }
+                out.append(" : ");
+                appendValue(out, values[i]);
+                out.append('\n');
+            }
+        }
+        case LINE -> {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    out.append(" | ");
+                }
+                out.append(columns.get(i).getLabel()).append(": ");
+                appendValue(out, values[i]);
+            }
+            out.append('\n');
+        }
+        case PAIR -> {
+            // rows inside a section are listed under its heading
+            boolean first = true;
+            if (section >= 0) {
+                out.append("  - ");
+            }
+            for (int i = 0; i < columns.size(); i++) {
+                if (i == section) {
+                    continue;
+                }
+                if (!first) {
+                    out.append(layout.getPairSeparator());
+                }
+                appendValue(out, values[i]);
+                first = false;
+            }
+            out.append('\n');
+        }
+        }
+    }
+
+    @Override
+    public void section(StringBuilder out, ReportLayout layout, Object value) {
+        out.append(layout.getColumns().get(layout.getSectionColumn()).getLabel()).append(": ");
+        appendValue(out, value);
+        out.append('\n');
+    }
+
+    @Override
+    public void sectionEnd(StringBuilder out, ReportLayout layout) {
+        out.append('\n');
+    }
+
+    @Override
+    public void end(StringBuilder out, ReportLayout layout, int rowCount) {
+        if (rowCount == 0 && layout.getEmptyMessage() != null) {
+            out.append(layout.getEmptyMessage()).append('\n');
+        }
+    }
+
+    private static void appendValue(StringBuilder out, Object value) {
+        if (value instanceof BigDecimal decimal) {
+            out.append(decimal.toPlainString());
+        } else if (value instanceof LocalDateTime time) {
+            out.append(time.format(FORMATTER));
+        } else {
+            out.append(value);
+        }
+    }
+}